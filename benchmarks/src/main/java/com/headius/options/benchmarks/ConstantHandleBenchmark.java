@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading an option through {@link Option#load()} with reading it
+ * through the constant-foldable {@link Option#asConstantHandle()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstantHandleBenchmark {
+    enum Category { BENCH }
+
+    static final Option<Integer> THRESHOLD = Option.integer("bench.constant.threshold", Category.BENCH, 50, "threshold");
+    static final MethodHandle THRESHOLD_HANDLE = THRESHOLD.asConstantHandle();
+
+    int calls = 42;
+
+    @Benchmark
+    public boolean load() {
+        return calls > THRESHOLD.load();
+    }
+
+    @Benchmark
+    public boolean constantHandle() throws Throwable {
+        return calls > (Integer) THRESHOLD_HANDLE.invokeExact();
+    }
+}
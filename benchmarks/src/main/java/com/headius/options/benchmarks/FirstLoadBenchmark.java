@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the first load of freshly-created options of each kind, which
+ * looks up and parses the property, against a default-only option that has
+ * no property set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FirstLoadBenchmark {
+    enum Category { BENCH }
+    enum Speed { FAST, SLOW, DEFAULT }
+
+    @Param({"string", "integer", "boolean", "enumeration"})
+    String type;
+
+    @Param({"true", "false"})
+    boolean specified;
+
+    static final int COUNT = 100;
+
+    Option[] options = new Option[COUNT];
+
+    @Setup(Level.Trial)
+    public void setProperties() {
+        if (!specified) return;
+
+        for (int i = 0; i < COUNT; i++) {
+            System.setProperty(name(i), value());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void clearProperties() {
+        for (int i = 0; i < COUNT; i++) {
+            System.clearProperty(name(i));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createOptions() {
+        for (int i = 0; i < COUNT; i++) {
+            options[i] = create(name(i));
+        }
+    }
+
+    @Benchmark
+    public void firstLoad(Blackhole bh) {
+        for (Option option : options) {
+            bh.consume(option.load());
+        }
+    }
+
+    private String name(int i) {
+        return "bench.first." + type + i;
+    }
+
+    private String value() {
+        if (type.equals("integer")) return "12345";
+        if (type.equals("boolean")) return "true";
+        if (type.equals("enumeration")) return "SLOW";
+        return "some value";
+    }
+
+    private Option create(String name) {
+        if (type.equals("integer")) return Option.integer(name, Category.BENCH, 0, "integer");
+        if (type.equals("boolean")) return Option.bool(name, Category.BENCH, false, "boolean");
+        if (type.equals("enumeration")) return Option.enumeration(name, Category.BENCH, Speed.DEFAULT, "enumeration");
+        return Option.string(name, Category.BENCH, "default", "string");
+    }
+}
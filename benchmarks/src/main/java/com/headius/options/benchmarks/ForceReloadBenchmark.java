@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.Option;
+import com.headius.options.OptionChange;
+import com.headius.options.OptionListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures churning an option's value through {@link Option#force(String)},
+ * {@link Option#unforce()} and {@link Option#reload()}, with and without a
+ * change listener attached.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ForceReloadBenchmark {
+    enum Category { BENCH }
+
+    @Param({"false", "true"})
+    boolean listening;
+
+    Option<Integer> count;
+    int changes;
+    int next;
+
+    @Setup
+    public void createOption() {
+        count = Option.integer("bench.force.count", Category.BENCH, 0, "count");
+        if (listening) {
+            count.addListener(new OptionListener<Integer>() {
+                public void optionChanged(OptionChange<Integer> change) {
+                    changes++;
+                }
+            });
+        }
+        count.load();
+    }
+
+    @Benchmark
+    public Integer force() {
+        count.force((next++ & 1) == 0 ? "1" : "2");
+        return count.load();
+    }
+
+    @Benchmark
+    public Integer forceUnforce() {
+        count.force("1");
+        count.unforce();
+        return count.load();
+    }
+
+    @Benchmark
+    public Integer reload() {
+        return count.reload();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.Option;
+import com.headius.options.OptionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Option#formatOptions} and {@link Option#formatValues} over
+ * a collection of options, which sorts on every call, and through an
+ * {@link OptionRegistry} writing into a reused buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatBenchmark {
+    enum Category { FIRST, SECOND, THIRD, FOURTH }
+
+    @Param({"10", "1000", "10000"})
+    int count;
+
+    List<Option> options;
+    OptionRegistry registry;
+    StringBuilder buffer = new StringBuilder();
+
+    @Setup
+    public void createOptions() {
+        Category[] categories = Category.values();
+
+        options = new ArrayList<Option>(count);
+        for (int i = 0; i < count; i++) {
+            Category category = categories[i % categories.length];
+            String name = "bench.format." + category.name().toLowerCase() + ".option" + i;
+            options.add(Option.string(name, category, "value " + i, "formatted option number " + i));
+        }
+
+        registry = new OptionRegistry(options);
+        registry.load();
+    }
+
+    @Benchmark
+    public String formatOptions() {
+        return Option.formatOptions(options);
+    }
+
+    @Benchmark
+    public String formatValues() {
+        return Option.formatValues(options);
+    }
+
+    @Benchmark
+    public StringBuilder registryFormatOptions() throws IOException {
+        buffer.setLength(0);
+        registry.formatOptions(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public StringBuilder registryFormatValues() throws IOException {
+        buffer.setLength(0);
+        registry.formatValues(buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Option#load()} on an option shared between threads, both
+ * when it is only read and when readers race a thread that keeps reloading it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+    enum Category { BENCH }
+
+    Option<String> name;
+    Option<Integer> count;
+
+    @Setup
+    public void createOptions() {
+        System.setProperty("bench.load.count", "42");
+
+        name = Option.string("bench.load.name", Category.BENCH, "default", "name");
+        count = Option.integer("bench.load.count", Category.BENCH, 0, "count");
+    }
+
+    @TearDown
+    public void clearProperties() {
+        System.clearProperty("bench.load.count");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String sharedString() {
+        return name.load();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer sharedInteger() {
+        return count.load();
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(3)
+    public Integer reader() {
+        return count.load();
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(1)
+    public Integer reloader() {
+        return count.reload();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.PropertiesFileSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a large generated properties file through
+ * {@link PropertiesFileSource} with {@link Properties#load(Reader)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertiesFileBenchmark {
+    @Param({"50000"})
+    int lines;
+
+    Path file;
+
+    @Setup
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("options-bench", ".properties");
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i % 10 == 0) sb.append("# generated option ").append(i).append('\n');
+            sb.append("bench.file.category").append(i % 100).append(".option").append(i).append('=').append(i * 31).append('\n');
+        }
+        Files.write(file, sb.toString().getBytes(Charset.forName("UTF-8")));
+    }
+
+    @TearDown
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Map<String, String> fileSource() throws IOException {
+        return new PropertiesFileSource(file).properties();
+    }
+
+    @Benchmark
+    public Properties propertiesLoad() throws IOException {
+        Properties properties = new Properties();
+        Reader reader = Files.newBufferedReader(file, Charset.forName("UTF-8"));
+        try {
+            properties.load(reader);
+        } finally {
+            reader.close();
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.IntOption;
+import com.headius.options.Option;
+import com.headius.options.OptionScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of scoped overrides on {@link Option#load()}: the
+ * unscoped fast path, which should be no slower than before scopes existed,
+ * loading an overridden option inside a scope, and opening and closing a
+ * scope.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScopeBenchmark {
+    enum Category { BENCH }
+
+    Option<Integer> unscoped;
+    IntOption unscopedInt;
+    Option<Integer> scoped;
+    OptionScope scope;
+
+    @Setup
+    public void createOptions() {
+        unscoped = Option.integer("bench.scope.unscoped", Category.BENCH, 1, "unscoped");
+        unscopedInt = Option.intOption("bench.scope.unscopedInt", Category.BENCH, 1, "unscoped int");
+        scoped = Option.integer("bench.scope.scoped", Category.BENCH, 1, "scoped");
+
+        scope = Option.scope().with(scoped, "2");
+    }
+
+    @TearDown
+    public void closeScope() {
+        scope.close();
+    }
+
+    @Benchmark
+    public Integer unscopedLoad() {
+        return unscoped.load();
+    }
+
+    @Benchmark
+    public int unscopedLoadInt() {
+        return unscopedInt.loadInt();
+    }
+
+    @Benchmark
+    public Integer scopedLoad() {
+        return scoped.load();
+    }
+
+    @Benchmark
+    public Integer openAndClose() {
+        try (OptionScope inner = Option.scope().with(unscoped, "3")) {
+            return unscoped.load();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options.benchmarks;
+
+import com.headius.options.Option;
+import com.headius.options.OptionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving a large set of freshly-created options, either one
+ * property lookup at a time or in a single pass through an
+ * {@link OptionRegistry}. The cost of registration alone is measured
+ * separately, since applications typically register options as they are
+ * defined.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StartupBenchmark {
+    enum Category { BENCH }
+
+    @Param({"1000"})
+    int count;
+
+    Option[] options;
+
+    @Setup(Level.Trial)
+    public void setProperties() {
+        // roughly one in ten options is actually specified
+        for (int i = 0; i < count; i += 10) {
+            System.setProperty("bench.startup.option" + i, Integer.toString(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void clearProperties() {
+        for (int i = 0; i < count; i += 10) {
+            System.clearProperty("bench.startup.option" + i);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createOptions() {
+        options = new Option[count];
+        for (int i = 0; i < count; i++) {
+            options[i] = Option.integer("bench.startup.option" + i, Category.BENCH, i, "option " + i);
+        }
+    }
+
+    @Benchmark
+    public void individual(Blackhole bh) {
+        for (Option option : options) {
+            bh.consume(option.load());
+        }
+    }
+
+    @Benchmark
+    public void registry(Blackhole bh) {
+        OptionRegistry registry = new OptionRegistry(options);
+        registry.load();
+        bh.consume(registry);
+    }
+
+    @Benchmark
+    public void registerOnly(Blackhole bh) {
+        bh.consume(new OptionRegistry(options));
+    }
+}
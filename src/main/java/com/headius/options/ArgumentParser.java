@@ -0,0 +1,297 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses command-line arguments into properties for a set of options, so
+ * tools can accept their options as arguments as well as system properties.
+ *
+ * The following forms are accepted, where name is an option's full property
+ * name or, if no other option shares it, its name without the prefix:
+ *
+ * <ul>
+ * <li>--name=value, or --name value for options that are not boolean</li>
+ * <li>--name for a boolean option, given a blank property, which boolean
+ * options take as true; --no-name sets it false</li>
+ * <li>-Xname and -Xname=value, and -Dname and -Dname=value, alike</li>
+ * <li>-- to end the options, so all later arguments are left as they are</li>
+ * </ul>
+ *
+ * Enumeration values are checked against the option's constants. Unknown
+ * options and rejected values are reported with the closest names or
+ * constants as suggestions, rather than stopping the parse. A -Dname=value
+ * naming no option is taken as a system property, as the java launcher would,
+ * and returned by {@link OptionArguments#systemProperties()}, unless the name
+ * falls under an option's prefix, where it is more likely a mistyped option
+ * and is reported as unknown.
+ *
+ * Names are looked up in the sorted index in place, so each argument costs a
+ * scan for '=' and a binary search, with no regular expressions or copies of
+ * the name.
+ *
+ * @see OptionRegistry#parseArguments(String...)
+ */
+public final class ArgumentParser {
+    /**
+     * Create a parser for the options in the given index.
+     *
+     * @param index the options to accept
+     */
+    public ArgumentParser(OptionIndex index) {
+        this.index = index;
+
+        // index the names without prefixes, leaving out any that are shared
+        // or that are also a full property name
+        List<Option> prefixed = new ArrayList<Option>();
+        for (Option option : index.options()) {
+            if (option.prefix() != null && option.shortName() != null) prefixed.add(option);
+        }
+        Collections.sort(prefixed, ShortNameComparator);
+
+        List<String> names = new ArrayList<String>();
+        List<Option> options = new ArrayList<Option>();
+        for (int i = 0; i < prefixed.size(); i++) {
+            String name = prefixed.get(i).shortName();
+            boolean shared = (i > 0 && prefixed.get(i - 1).shortName().equals(name))
+                    || (i + 1 < prefixed.size() && prefixed.get(i + 1).shortName().equals(name));
+            if (shared) {
+                if (names.isEmpty() || !names.get(names.size() - 1).equals(name)) {
+                    names.add(name);
+                    options.add(null);
+                }
+            } else if (index.get(name) == null) {
+                names.add(name);
+                options.add(prefixed.get(i));
+            }
+        }
+
+        this.shortNames = names.toArray(new String[names.size()]);
+        this.byShortName = options.toArray(new Option[options.size()]);
+    }
+
+    /**
+     * Parse the given arguments in a single pass.
+     *
+     * @param args the command-line arguments
+     * @return the properties, remaining arguments and errors
+     */
+    public OptionArguments parse(String... args) {
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+        Map<String, String> systemProperties = new LinkedHashMap<String, String>();
+        List<String> remaining = new ArrayList<String>();
+        List<String> errors = new ArrayList<String>();
+
+        int i = 0;
+        while (i < args.length) {
+            String arg = args[i++];
+            int length = arg.length();
+
+            if (length < 2 || arg.charAt(0) != '-') {
+                remaining.add(arg);
+                continue;
+            }
+
+            char kind = arg.charAt(1);
+            if (kind == '-' && length == 2) {
+                while (i < args.length) remaining.add(args[i++]);
+                break;
+            }
+            if (kind != '-' && kind != 'X' && kind != 'D') {
+                remaining.add(arg);
+                continue;
+            }
+
+            int equals = arg.indexOf('=', 2);
+            int end = equals < 0 ? length : equals;
+
+            boolean negated = false;
+            Option option = find(arg, 2, end);
+            if (option == null && isShared(arg, 2, end)) {
+                errors.add("ambiguous option " + arg.substring(0, end) + "; use its full name, one of " + sharing(arg.substring(2, end)));
+                continue;
+            }
+            if (option == null && kind == '-' && equals < 0 && arg.startsWith("--no-")) {
+                option = find(arg, 5, end);
+                negated = option instanceof BooleanOption;
+                if (!negated) option = null;
+            }
+            if (option == null && kind == 'D' && end > 2 && !index.isUnknown(arg.substring(2, end))) {
+                systemProperties.put(arg.substring(2, end), equals < 0 ? "" : arg.substring(equals + 1));
+                continue;
+            }
+            if (option == null) {
+                errors.add("unknown option " + arg.substring(0, end) + suggest(arg.substring(0, 2), arg.substring(2, end), names()));
+                continue;
+            }
+
+            String value;
+            if (equals >= 0) {
+                value = arg.substring(equals + 1);
+            } else if (option instanceof BooleanOption) {
+                value = negated ? "false" : "";
+            } else if (kind == '-' && i < args.length) {
+                value = args[i++];
+            } else {
+                errors.add("missing value for option " + arg);
+                continue;
+            }
+
+            if (option instanceof EnumerationOption && !((EnumerationOption) option).accepts(value)) {
+                List<String> constants = constants(option);
+                String suggestion = suggest("", value, constants);
+                errors.add("invalid value " + value + " for option " + arg.substring(0, end) + (suggestion.isEmpty() ? "; expected one of " + constants : suggestion));
+                continue;
+            }
+
+            properties.put(option.propertyName(), value);
+        }
+
+        return new OptionArguments(properties, systemProperties, remaining, errors);
+    }
+
+    private Option find(String arg, int start, int end) {
+        Option option = index.get(arg, start, end);
+        if (option != null) return option;
+
+        int found = OptionIndex.search(shortNames, arg, start, end);
+        return found < 0 ? null : byShortName[found];
+    }
+
+    private boolean isShared(String arg, int start, int end) {
+        int found = OptionIndex.search(shortNames, arg, start, end);
+        return found >= 0 && byShortName[found] == null;
+    }
+
+    private List<String> sharing(String shortName) {
+        List<String> sharing = new ArrayList<String>();
+        for (Option option : index.options()) {
+            if (shortName.equals(option.shortName())) sharing.add(option.propertyName());
+        }
+        return sharing;
+    }
+
+    private List<String> names() {
+        List<String> names = new ArrayList<String>(index.size() + shortNames.length);
+        for (Option option : index.options()) {
+            names.add(option.propertyName());
+        }
+        for (int i = 0; i < shortNames.length; i++) {
+            if (byShortName[i] != null) names.add(shortNames[i]);
+        }
+        return names;
+    }
+
+    private static List<String> constants(Option option) {
+        List<String> constants = new ArrayList<String>();
+        for (Object constant : option.options()) {
+            constants.add(constant.toString());
+        }
+        return constants;
+    }
+
+    /**
+     * Suggest the candidates closest to a mistyped name, within an edit
+     * distance of a third of its length.
+     */
+    private static String suggest(String dashes, String typed, List<String> candidates) {
+        final String folded = typed.toLowerCase();
+        int limit = Math.max(1, typed.length() / 3);
+
+        final Map<String, Integer> distances = new LinkedHashMap<String, Integer>();
+        for (String candidate : candidates) {
+            int distance = distance(folded, candidate.toLowerCase(), limit);
+            if (distance <= limit) distances.put(candidate, distance);
+        }
+        if (distances.isEmpty()) return "";
+
+        List<String> closest = new ArrayList<String>(distances.keySet());
+        Collections.sort(closest, new Comparator<String>() {
+            public int compare(String a, String b) {
+                int diff = distances.get(a) - distances.get(b);
+                return diff != 0 ? diff : a.compareTo(b);
+            }
+        });
+
+        StringBuilder sb = new StringBuilder("; did you mean ");
+        for (int i = 0; i < Math.min(closest.size(), MAX_SUGGESTIONS); i++) {
+            if (i > 0) sb.append(" or ");
+            sb.append(dashes).append(closest.get(i));
+        }
+        return sb.append('?').toString();
+    }
+
+    /**
+     * The edit distance between two strings, counting a swap of adjacent
+     * characters as one edit as well as insertions, deletions and
+     * substitutions, or any value over the limit once it is certain to exceed
+     * it.
+     */
+    private static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) return limit + 1;
+
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        // each row is computed from the two above it, so stop once both exceed the limit
+        int previousBest = 0;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int best = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, beforePrevious[j - 2] + 1);
+                }
+                current[j] = distance;
+                best = Math.min(best, distance);
+            }
+            if (best > limit && previousBest > limit) return limit + 1;
+            previousBest = best;
+
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[b.length()];
+    }
+
+    private static final Comparator<Option> ShortNameComparator = new Comparator<Option>() {
+        public int compare(Option o1, Option o2) {
+            return o1.shortName().compareTo(o2.shortName());
+        }
+    };
+
+    private static final int MAX_SUGGESTIONS = 3;
+
+    private final OptionIndex index;
+    private final String[] shortNames;
+    // null for a name without prefix shared by several options
+    private final Option[] byShortName;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A primitive boolean-based Option.
+ *
+ * The loaded value is also cached unboxed, so once loaded {@link #loadBoolean()}
+ * reads it without any allocation. As with {@link BooleanOption}, a property
+ * specified as blank is considered a true value.
+ */
+public class BoolOption extends BooleanOption {
+    public BoolOption(String prefix, String shortName, Enum category, boolean defval, String description) {
+        super(prefix, shortName, category, defval, description);
+    }
+
+    public BoolOption(String longName, Enum category, boolean defval, String description) {
+        super(longName, category, defval, description);
+    }
+
+    /**
+     * @return the value of the option as a primitive boolean, loading if it has not been already.
+     */
+    public final boolean loadBoolean() {
+        Snapshot<Boolean> snapshot = snapshot();
+        if (snapshot.loaded && !isScoped()) {
+            if (OptionMetrics.ENABLED) countLoad();
+            return ((BooleanSnapshot) snapshot).booleanValue;
+        }
+
+        return load();
+    }
+
+    @Override
+    Snapshot<Boolean> loadedSnapshot(Boolean value, long version, boolean specified, OptionError error) {
+        return new BooleanSnapshot(value, version, specified, error);
+    }
+
+    static final class BooleanSnapshot extends Snapshot<Boolean> {
+        BooleanSnapshot(Boolean value, long version, boolean specified, OptionError error) {
+            super(value, version, true, specified, error);
+            this.booleanValue = value;
+        }
+
+        final boolean booleanValue;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * Computes the value of a {@link DerivedOption} from its inputs.
+ *
+ * @param <T> the type of the derived value
+ */
+public interface Derivation<T> {
+    /**
+     * Compute the derived value, reading the inputs through
+     * {@link DerivedOption#input(Option)}.
+     *
+     * @param option the option being derived
+     * @return the derived value
+     */
+    T derive(DerivedOption<T> option);
+}
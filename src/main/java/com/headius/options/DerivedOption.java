@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An Option whose value is computed from other options rather than read from
+ * a property of its own.
+ *
+ * The value is computed on first load and kept like any other option's loaded
+ * value, until one of the inputs is forced, unforced or reloaded; the option
+ * then returns to an unloaded state and is computed again on its next load.
+ * Inputs are read ignoring any {@link OptionScope}, so the kept value is the
+ * same for every thread. A derived option cannot be forced.
+ */
+public class DerivedOption<T> extends Option<T> {
+    public DerivedOption(String prefix, String shortName, Class<T> type, Enum category, Derivation<T> derivation, String description, Option<?>... inputs) {
+        super(prefix, shortName, type, category, null, null, description);
+        this.derivation = derivation;
+        this.inputs = inputs.clone();
+        dependOn(this.inputs);
+    }
+
+    public DerivedOption(String longName, Class<T> type, Enum category, Derivation<T> derivation, String description, Option<?>... inputs) {
+        super(longName, type, category, null, null, description);
+        this.derivation = derivation;
+        this.inputs = inputs.clone();
+        dependOn(this.inputs);
+    }
+
+    /**
+     * @return the options from which this option's value is computed
+     */
+    public List<Option<?>> inputs() {
+        return Collections.unmodifiableList(Arrays.asList(inputs));
+    }
+
+    /**
+     * Read the value of one of this option's inputs, for use by its
+     * {@link Derivation}.
+     *
+     * @param input one of this option's inputs
+     * @param <I> the type of the input's value
+     * @return the input's value, ignoring any scoped override
+     * @throws IllegalArgumentException if the option is not one of the inputs
+     */
+    public <I> I input(Option<I> input) {
+        for (Option<?> option : inputs) {
+            if (option == input) return input.loadGlobal();
+        }
+
+        throw new IllegalArgumentException("option " + input.propertyName() + " is not an input of " + propertyName());
+    }
+
+    /**
+     * @return "derived", since the value comes from the inputs rather than
+     *         from a source or a forced value
+     */
+    @Override
+    public String origin() {
+        return "derived";
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a derived option has no property to force
+     */
+    @Override
+    public void force(String value) {
+        throw new UnsupportedOperationException("derived option " + propertyName() + " cannot be forced");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a derived option has no property to force
+     */
+    @Override
+    Parse<T> prepareForce(String value) {
+        throw new UnsupportedOperationException("derived option " + propertyName() + " cannot be forced");
+    }
+
+    protected T reloadValue() {
+        return derivation.derive(this);
+    }
+
+    private void dependOn(Option<?>[] inputs) {
+        for (Option<?> input : inputs) {
+            input.addDependent(this);
+        }
+    }
+
+    private final Derivation<T> derivation;
+    private final Option<?>[] inputs;
+}
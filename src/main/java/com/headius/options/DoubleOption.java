@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A primitive double-based Option.
+ *
+ * The loaded value is also cached unboxed, so once loaded {@link #loadDouble()}
+ * reads it without any allocation. A value that cannot be parsed is rejected
+ * in favor of the default, and reported by {@link #error()}.
+ */
+public class DoubleOption extends Option<Double> {
+    public DoubleOption(String prefix, String shortName, Enum category, double defval, String description) {
+        super(prefix, shortName, Double.class, category, null, defval, description);
+    }
+
+    public DoubleOption(String longName, Enum category, double defval, String description) {
+        super(longName, Double.class, category, null, defval, description);
+    }
+
+    /**
+     * @return the value of the option as a primitive double, loading if it has not been already.
+     */
+    public final double loadDouble() {
+        Snapshot<Double> snapshot = snapshot();
+        if (snapshot.loaded && !isScoped()) {
+            if (OptionMetrics.ENABLED) countLoad();
+            return ((DoubleSnapshot) snapshot).doubleValue;
+        }
+
+        return load();
+    }
+
+    protected Double reloadValue() {
+        String value = super.loadProperty();
+
+        if (value == null) {
+            return defval;
+        }
+
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException nfe) {
+            return invalid(value, nfe.getMessage());
+        }
+    }
+
+    @Override
+    Snapshot<Double> loadedSnapshot(Double value, long version, boolean specified, OptionError error) {
+        return new DoubleSnapshot(value, version, specified, error);
+    }
+
+    static final class DoubleSnapshot extends Snapshot<Double> {
+        DoubleSnapshot(Double value, long version, boolean specified, OptionError error) {
+            super(value, version, true, specified, error);
+            this.doubleValue = value;
+        }
+
+        final double doubleValue;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A duration Option, held as a primitive long in a fixed {@link TimeUnit}.
+ *
+ * A plain number, including a hexadecimal one with a 0x prefix, is taken to be
+ * in the option's unit; otherwise the value may end with a unit suffix (ns, us,
+ * ms, s, min, h, d) and is converted directly to the option's unit, truncating
+ * any fraction, so "500ms" is 0 for an option in seconds. A value that cannot
+ * be parsed or does not fit in a long in the option's unit is rejected in favor
+ * of the default, and reported by {@link #error()}.
+ */
+public class DurationOption extends LongOption {
+    public DurationOption(String prefix, String shortName, Enum category, TimeUnit unit, long defval, String description) {
+        super(prefix, shortName, category, defval, description);
+        this.unit = unit;
+    }
+
+    public DurationOption(String longName, Enum category, TimeUnit unit, long defval, String description) {
+        super(longName, category, defval, description);
+        this.unit = unit;
+    }
+
+    /**
+     * @return the unit of the option's value
+     */
+    public TimeUnit unit() {
+        return unit;
+    }
+
+    protected Long reloadValue() {
+        String value = super.loadProperty();
+
+        if (value == null) {
+            return defval;
+        }
+
+        try {
+            int suffix = suffixStart(value);
+            long amount = NumberParser.parse(value, 0, suffix, NumberParser.NONE);
+            if (suffix == value.length()) return amount;
+
+            TimeUnit from = suffixUnit(value, suffix);
+            if (from == null) return invalid(value, "unknown unit suffix: \"" + value + "\"");
+
+            // coarser units are converted exactly so overflow is caught, rather
+            // than saturating as TimeUnit.convert does
+            if (from.compareTo(unit) > 0) return Math.multiplyExact(amount, unit.convert(1, from));
+
+            return unit.convert(amount, from);
+        } catch (NumberFormatException nfe) {
+            return invalid(value, nfe.getMessage());
+        } catch (ArithmeticException ae) {
+            return invalid(value, "out of range: \"" + value + "\"");
+        }
+    }
+
+    /**
+     * @return the index of the value's unit suffix, or its length if it has
+     *         none; a hexadecimal value has no suffix, since its digits may be
+     *         letters
+     */
+    private static int suffixStart(String value) {
+        int start = 0;
+        if (start < value.length() && (value.charAt(start) == '-' || value.charAt(start) == '+')) start++;
+        if (value.regionMatches(true, start, "0x", 0, 2)) return value.length();
+
+        int suffix = value.length();
+        while (suffix > start && Character.isLetter(value.charAt(suffix - 1))) suffix--;
+
+        return suffix;
+    }
+
+    private static TimeUnit suffixUnit(String value, int start) {
+        int length = value.length() - start;
+        for (int i = 0; i < SUFFIXES.length; i++) {
+            if (SUFFIXES[i].length() == length && value.regionMatches(true, start, SUFFIXES[i], 0, length)) {
+                return UNITS[i];
+            }
+        }
+        return null;
+    }
+
+    private static final String[] SUFFIXES = {"ns", "us", "ms", "s", "min", "h", "d"};
+    private static final TimeUnit[] UNITS = {
+            TimeUnit.NANOSECONDS, TimeUnit.MICROSECONDS, TimeUnit.MILLISECONDS, TimeUnit.SECONDS,
+            TimeUnit.MINUTES, TimeUnit.HOURS, TimeUnit.DAYS};
+
+    private final TimeUnit unit;
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * Parses one element of a {@link ListOption} or a key or value of a
+ * {@link MapOption} from a region of the property string, so the property is
+ * scanned in place rather than split into intermediate strings.
+ *
+ * @param <T> the type of the parsed elements
+ */
+public interface ElementParser<T> {
+    /**
+     * Parse the element between the given indexes, which exclude any
+     * surrounding whitespace.
+     *
+     * @param value the property string
+     * @param start the index of the element's first character
+     * @param end the index after the element's last character
+     * @return the parsed element
+     * @throws IllegalArgumentException if the element is not valid
+     */
+    T parse(String value, int start, int end);
+
+    /**
+     * Elements taken as strings.
+     */
+    ElementParser<String> STRING = new ElementParser<String>() {
+        public String parse(String value, int start, int end) {
+            return value.substring(start, end);
+        }
+    };
+
+    /**
+     * Elements parsed as integers, in decimal or 0x-prefixed hexadecimal, with optional underscores.
+     */
+    ElementParser<Integer> INTEGER = new ElementParser<Integer>() {
+        public Integer parse(String value, int start, int end) {
+            long parsed = NumberParser.parse(value, start, end, NumberParser.NONE);
+            if (parsed < Integer.MIN_VALUE || parsed > Integer.MAX_VALUE) {
+                throw new NumberFormatException("out of range: \"" + value.substring(start, end) + "\"");
+            }
+            return (int) parsed;
+        }
+    };
+
+    /**
+     * Elements parsed as longs, in decimal or 0x-prefixed hexadecimal, with optional underscores.
+     */
+    ElementParser<Long> LONG = new ElementParser<Long>() {
+        public Long parse(String value, int start, int end) {
+            return NumberParser.parse(value, start, end, NumberParser.NONE);
+        }
+    };
+
+    /**
+     * Elements parsed as booleans, "true" or "false" in any case.
+     */
+    ElementParser<Boolean> BOOLEAN = new ElementParser<Boolean>() {
+        public Boolean parse(String value, int start, int end) {
+            int length = end - start;
+            if (length == 4 && value.regionMatches(true, start, "true", 0, 4)) return Boolean.TRUE;
+            if (length == 5 && value.regionMatches(true, start, "false", 0, 5)) return Boolean.FALSE;
+
+            throw new IllegalArgumentException("not a boolean: \"" + value.substring(start, end) + "\"");
+        }
+    };
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Map;
+
+/**
+ * A precomputed table for looking up enum constants by name, ignoring case,
+ * along with any aliases for them.
+ *
+ * Names are hashed into an open-addressed table by their case-folded
+ * characters, and compared in place with
+ * {@link String#regionMatches(boolean, int, String, int, int)}, so a lookup
+ * allocates nothing. An exact match is preferred if names differ only in case.
+ *
+ * @param <T> the enum type
+ */
+final class EnumTable<T extends Enum<T>> {
+    /**
+     * Build a table over the given constants and aliases.
+     *
+     * @param constants the constants, found by name
+     * @param aliases additional names for constants, or null for none
+     */
+    EnumTable(T[] constants, Map<String, T> aliases) {
+        int size = constants.length + (aliases == null ? 0 : aliases.size());
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 + 1) << 1;
+
+        this.names = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+
+        for (T constant : constants) {
+            put(constant.name(), constant);
+        }
+        if (aliases != null) {
+            for (Map.Entry<String, T> alias : aliases.entrySet()) {
+                put(alias.getKey(), alias.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the shared table for all the constants of the given enum, without aliases
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Enum<T>> EnumTable<T> of(Class<T> enumType) {
+        return (EnumTable<T>) TABLES.get(enumType);
+    }
+
+    private static final ClassValue<EnumTable<?>> TABLES = new ClassValue<EnumTable<?>>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected EnumTable<?> computeValue(Class<?> type) {
+            return new EnumTable((Enum[]) type.getEnumConstants(), null);
+        }
+    };
+
+    /**
+     * Find the constant with the given name or alias, ignoring case.
+     *
+     * @param name the name to look up
+     * @return the constant, or null if there is none by that name
+     */
+    @SuppressWarnings("unchecked")
+    T get(String name) {
+        Object folded = null;
+        for (int i = hash(name) & mask; names[i] != null; i = (i + 1) & mask) {
+            String candidate = names[i];
+            if (candidate.length() != name.length()) continue;
+
+            if (candidate.equals(name)) return (T) values[i];
+            if (folded == null && candidate.regionMatches(true, 0, name, 0, name.length())) folded = values[i];
+        }
+        return (T) folded;
+    }
+
+    private void put(String name, T value) {
+        int i = hash(name) & mask;
+        while (names[i] != null) {
+            if (names[i].equals(name)) throw new IllegalArgumentException("duplicate enum name or alias: " + name);
+            i = (i + 1) & mask;
+        }
+
+        names[i] = name;
+        values[i] = value;
+    }
+
+    /**
+     * Hash the name's characters folded the same way as
+     * {@link String#equalsIgnoreCase(String)}, so names equal ignoring case
+     * land in the same probe sequence.
+     */
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0, length = name.length(); i < length; i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private final String[] names;
+    private final Object[] values;
+    private final int mask;
+}
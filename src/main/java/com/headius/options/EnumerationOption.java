@@ -16,16 +16,46 @@
 
 package com.headius.options;
 
+import java.util.Map;
+
 /**
  * An Enum-based Option.
+ *
+ * Values are matched against the names of the option's constants, and any
+ * aliases given for them, ignoring case, through a precomputed table shared
+ * by options over all of an enum's constants. Once constructed with an
+ * explicit array of constants the option needs no reflection, and may be
+ * created while building a native image or archive. A value matching no
+ * constant is rejected in favor of the default, and reported by
+ * {@link #error()}.
  */
 public class EnumerationOption<T extends Enum<T>> extends Option<T> {
     public EnumerationOption(String prefix, String shortName, Enum category, Class<T> enumType, T defval, String description) {
-        super(prefix, shortName, enumType, category, (T[])enumType.getEnumConstants(), defval, description);
+        super(prefix, shortName, enumType, category, enumType.getEnumConstants(), defval, description);
+        this.table = EnumTable.of(enumType);
     }
     
     public EnumerationOption(String longName, Enum category, Class<T> enumType, T defval, String description) {
-        super(longName, enumType, category, (T[])enumType.getEnumConstants(), defval, description);
+        super(longName, enumType, category, enumType.getEnumConstants(), defval, description);
+        this.table = EnumTable.of(enumType);
+    }
+
+    public EnumerationOption(String prefix, String shortName, Enum category, Class<T> enumType, T[] constants, T defval, String description) {
+        this(prefix, shortName, category, enumType, constants, null, defval, description);
+    }
+
+    public EnumerationOption(String longName, Enum category, Class<T> enumType, T[] constants, T defval, String description) {
+        this(longName, category, enumType, constants, null, defval, description);
+    }
+
+    public EnumerationOption(String prefix, String shortName, Enum category, Class<T> enumType, T[] constants, Map<String, T> aliases, T defval, String description) {
+        super(prefix, shortName, enumType, category, constants, defval, description);
+        this.table = new EnumTable<T>(constants, aliases);
+    }
+
+    public EnumerationOption(String longName, Enum category, Class<T> enumType, T[] constants, Map<String, T> aliases, T defval, String description) {
+        super(longName, enumType, category, constants, defval, description);
+        this.table = new EnumTable<T>(constants, aliases);
     }
 
     protected T reloadValue() {
@@ -35,6 +65,18 @@ public class EnumerationOption<T extends Enum<T>> extends Option<T> {
             return defval;
         }
 
-        return Enum.valueOf((Class<T>)type, value);
+        T constant = table.get(value);
+        if (constant == null) return invalid(value, "not one of " + optionsString());
+
+        return constant;
     }
+
+    /**
+     * @return true if the given property names one of this option's constants or aliases
+     */
+    boolean accepts(String value) {
+        return table.get(value) != null;
+    }
+
+    private final EnumTable<T> table;
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An option source supplying environment variables as properties.
+ *
+ * Given a registry, each registered option's property is supplied by the
+ * variable with its conventional name: the property name upper-cased, with
+ * every character other than a letter or digit replaced by an underscore, so
+ * CONFIG_TIMEOUTSECS supplies config.timeoutSecs. The names are computed once
+ * for each set of registered options, not on every load, and two options
+ * whose names map to the same variable are rejected. No other variables are
+ * supplied.
+ *
+ * Without a registry, only the variables under a given prefix are supplied.
+ * A registry loading the source matches them to its options under the prefix
+ * by the same conventional names, so with the prefix "config",
+ * CONFIG_TIMEOUTSECS supplies config.timeoutSecs; variables such as JAVA_HOME
+ * are left alone rather than shadowing properties such as java.home. Read on
+ * its own through {@link #properties()}, the source can only guess the
+ * property names, by lower-casing the variables and replacing underscores
+ * with dots, so CONFIG_NAME supplies config.name.
+ *
+ * The environment cannot change while the JVM runs, so it is read once, on
+ * first use, and kept.
+ */
+public class EnvironmentSource implements OptionSource {
+    /**
+     * Create a source mapping the variables under the given prefix to
+     * properties by their names alone.
+     *
+     * @param prefix the property prefix, such as "config", whose variables,
+     *               such as CONFIG_NAME, are supplied
+     */
+    public EnvironmentSource(String prefix) {
+        this(null, prefix, null);
+    }
+
+    /**
+     * Create a source supplying the given registry's options from the
+     * variables with their conventional names.
+     *
+     * @param registry the registry whose options are supplied
+     * @see #variableName(String)
+     */
+    public EnvironmentSource(OptionRegistry registry) {
+        this(registry, null, null);
+    }
+
+    EnvironmentSource(OptionRegistry registry, String prefix, Map<String, String> environment) {
+        if (registry == null && prefix == null) throw new NullPointerException("prefix");
+        if (prefix != null && prefix.endsWith(".")) prefix = prefix.substring(0, prefix.length() - 1);
+
+        this.registry = registry;
+        this.prefix = prefix;
+        this.environment = environment;
+    }
+
+    public String name() {
+        return "environment";
+    }
+
+    /**
+     * @throws IllegalArgumentException if two registered options map to the
+     *         same variable, such as a.b-c and a.b.c
+     */
+    public Map<String, String> properties() {
+        Map<String, String> environment = environment();
+        if (registry == null) return prefixed(environment);
+
+        return mapping(registry.index(), environment).properties;
+    }
+
+    /**
+     * Supply the given options, or those under the prefix, from the variables
+     * with their conventional names.
+     *
+     * @throws IllegalArgumentException if two of the options map to the same
+     *         variable, such as a.b-c and a.b.c
+     */
+    @Override
+    public Map<String, String> properties(OptionIndex options) {
+        return mapping(options, environment()).properties;
+    }
+
+    /**
+     * Return the conventional environment variable name for a property name.
+     *
+     * @param propertyName the property name, such as config.timeoutSecs
+     * @return the variable name, such as CONFIG_TIMEOUTSECS
+     */
+    public static String variableName(String propertyName) {
+        char[] chars = new char[propertyName.length()];
+        for (int i = 0; i < chars.length; i++) {
+            char c = propertyName.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                chars[i] = (char) (c - ('a' - 'A'));
+            } else if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                chars[i] = c;
+            } else {
+                chars[i] = '_';
+            }
+        }
+        return new String(chars);
+    }
+
+    private Map<String, String> environment() {
+        Map<String, String> environment = this.environment;
+        if (environment != null) return environment;
+
+        try {
+            environment = System.getenv();
+        } catch (SecurityException se) {
+            environment = Collections.emptyMap();
+        }
+
+        return this.environment = environment;
+    }
+
+    private Mapping mapping(OptionIndex index, Map<String, String> environment) {
+        Mapping mapping = this.mapping;
+        if (mapping == null || mapping.index != index) this.mapping = mapping = new Mapping(index, prefix, environment);
+
+        return mapping;
+    }
+
+    private Map<String, String> prefixed(Map<String, String> environment) {
+        Map<String, String> prefixed = this.prefixed;
+        if (prefixed != null) return prefixed;
+
+        String variablePrefix = variableName(prefix) + '_';
+        prefixed = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : environment.entrySet()) {
+            String variable = entry.getKey();
+            if (variable.startsWith(variablePrefix)) {
+                prefixed.put(prefix + '.' + variable.substring(variablePrefix.length()).toLowerCase(Locale.ROOT).replace('_', '.'), entry.getValue());
+            }
+        }
+
+        return this.prefixed = Collections.unmodifiableMap(prefixed);
+    }
+
+    /**
+     * The properties supplied to one set of registered options: those of the
+     * options, or of the options under the prefix, whose conventional
+     * variables are set.
+     */
+    private static final class Mapping {
+        Mapping(OptionIndex index, String prefix, Map<String, String> environment) {
+            List<Option> options = prefix == null ? index.options() : index.findByPrefix(prefix + '.');
+            Map<String, Option> byVariable = new HashMap<String, Option>(options.size() * 2);
+            Map<String, String> properties = new HashMap<String, String>();
+            for (Option option : options) {
+                String variable = variableName(option.propertyName());
+                Option existing = byVariable.put(variable, option);
+                if (existing != null) {
+                    throw new IllegalArgumentException("options " + existing.propertyName() + " and " + option.propertyName() + " both map to environment variable " + variable);
+                }
+
+                String value = environment.get(variable);
+                if (value != null) properties.put(option.propertyName(), value);
+            }
+
+            this.index = index;
+            this.properties = Collections.unmodifiableMap(properties);
+        }
+
+        final OptionIndex index;
+        final Map<String, String> properties;
+    }
+
+    private final OptionRegistry registry;
+    private final String prefix;
+    private volatile Map<String, String> environment;
+    private volatile Map<String, String> prefixed;
+    private volatile Mapping mapping;
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metadata for a set of options computed at build time by
+ * {@link OptionGenerator}: their property names in sorted order, their
+ * defaults as constants, and their help text as produced by
+ * {@link Option#formatOptions}.
+ *
+ * A generated class holds its metadata in its OPTIONS constant. Passing that
+ * to {@link OptionRegistry#prepare(GeneratedOptions)} lets the registry index
+ * its options in the generated order and print the generated help text,
+ * rather than sorting and formatting the options at startup, leaving only the
+ * overlay of the properties actually set to {@link OptionRegistry#load()}.
+ */
+public final class GeneratedOptions {
+    /**
+     * Create metadata from the constants of a generated class. The arrays are
+     * used as given rather than copied.
+     *
+     * @param names the options' property names, sorted
+     * @param defaults the options' defaults in the order of the names, or null
+     *                 for an option with no default or one that cannot be
+     *                 written as a constant
+     * @param help the lines of the options' help text
+     */
+    public GeneratedOptions(String[] names, Object[] defaults, String[] help) {
+        if (defaults.length != names.length) throw new IllegalArgumentException("expected " + names.length + " defaults but got " + defaults.length);
+
+        this.names = names;
+        this.defaults = defaults;
+        this.help = help;
+    }
+
+    /**
+     * @return the options' property names, sorted
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * @param name a property name
+     * @return true if the name is the property name of one of the options
+     */
+    public boolean isOption(String name) {
+        return Arrays.binarySearch(names, name) >= 0;
+    }
+
+    /**
+     * Look up the generated default of an option.
+     *
+     * @param name the option's property name
+     * @return the default, or null if the option has none, it could not be
+     *         generated, or there is no such option
+     */
+    public Object defaultValue(String name) {
+        int index = Arrays.binarySearch(names, name);
+
+        return index < 0 ? null : defaults[index];
+    }
+
+    /**
+     * @return the options as formatted by {@link Option#formatOptions}
+     */
+    public String help() {
+        String joined = this.joined;
+        if (joined == null) this.joined = joined = String.join("\n", help);
+
+        return joined;
+    }
+
+    /**
+     * Put the given registered options in the generated order, checking that
+     * they are the options the metadata was generated from.
+     *
+     * @param byName the registered options by property name
+     * @return the options sorted by property name
+     * @throws IllegalArgumentException if the options differ from the
+     *         generated ones in name or default, as when the generated class
+     *         is out of date
+     */
+    Option[] sort(Map<String, Option> byName) {
+        if (byName.size() != names.length) {
+            throw new IllegalArgumentException("generated for " + names.length + " options but " + byName.size() + " are registered");
+        }
+
+        Option[] sorted = new Option[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Option option = byName.get(names[i]);
+            if (option == null) throw new IllegalArgumentException("generated option " + names[i] + " is not registered");
+
+            if (defaults[i] != null && !defaults[i].equals(option.defaultValue())) {
+                throw new IllegalArgumentException("default of " + names[i] + " has changed since it was generated");
+            }
+
+            sorted[i] = option;
+        }
+
+        return sorted;
+    }
+
+    private final String[] names;
+    private final Object[] defaults;
+    private final String[] help;
+    private volatile String joined;
+}
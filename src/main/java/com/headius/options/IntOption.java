@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A primitive int-based Option.
+ *
+ * The loaded value is also cached unboxed, so once loaded {@link #loadInt()}
+ * reads it without any allocation.
+ */
+public class IntOption extends IntegerOption {
+    public IntOption(String prefix, String shortName, Enum category, Integer[] options, int defval, String description) {
+        super(prefix, shortName, category, options, defval, description);
+    }
+
+    public IntOption(String longName, Enum category, Integer[] options, int defval, String description) {
+        super(longName, category, options, defval, description);
+    }
+
+    public IntOption(String prefix, String shortName, Enum category, int defval, String description) {
+        super(prefix, shortName, category, defval, description);
+    }
+
+    public IntOption(String longName, Enum category, int defval, String description) {
+        super(longName, category, defval, description);
+    }
+
+    public IntOption(String prefix, String shortName, Enum category, int min, int max, int defval, String description) {
+        super(prefix, shortName, category, min, max, defval, description);
+    }
+
+    public IntOption(String longName, Enum category, int min, int max, int defval, String description) {
+        super(longName, category, min, max, defval, description);
+    }
+
+    /**
+     * @return the value of the option as a primitive int, loading if it has not been already.
+     */
+    public final int loadInt() {
+        Snapshot<Integer> snapshot = snapshot();
+        if (snapshot.loaded && !isScoped()) {
+            if (OptionMetrics.ENABLED) countLoad();
+            return ((IntSnapshot) snapshot).intValue;
+        }
+
+        return load();
+    }
+
+    @Override
+    Snapshot<Integer> loadedSnapshot(Integer value, long version, boolean specified, OptionError error) {
+        return new IntSnapshot(value, version, specified, error);
+    }
+
+    static final class IntSnapshot extends Snapshot<Integer> {
+        IntSnapshot(Integer value, long version, boolean specified, OptionError error) {
+            super(value, version, true, specified, error);
+            this.intValue = value;
+        }
+
+        final int intValue;
+    }
+}
@@ -16,24 +16,53 @@
 
 package com.headius.options;
 
+import java.util.Arrays;
+
 /**
  * An Integer-based Option.
+ *
+ * Values may be written in hexadecimal with a 0x prefix, may separate digits
+ * with underscores, and may end with a size suffix (k, m, g, t, in powers of
+ * 1024) or a duration suffix in milliseconds (ms, s, min, h, d), so "64k" is
+ * 65536 and "2s" is 2000. A value that cannot be parsed, or that is not one of
+ * the option's {@link #options()} or within its range, is rejected: the default
+ * is used instead, and the problem is reported by {@link #error()}.
  */
 public class IntegerOption extends Option<Integer> {
     public IntegerOption(String prefix, String shortName, Enum category, Integer[] options, Integer defval, String description) {
         super(prefix, shortName, Integer.class, category, options, defval, description);
+        this.allowed = allowed(options);
+        this.min = Integer.MIN_VALUE;
+        this.max = Integer.MAX_VALUE;
     }
     
     public IntegerOption(String longName, Enum category, Integer[] options, Integer defval, String description) {
         super(longName, Integer.class, category, options, defval, description);
+        this.allowed = allowed(options);
+        this.min = Integer.MIN_VALUE;
+        this.max = Integer.MAX_VALUE;
     }
     
     public IntegerOption(String prefix, String shortName, Enum category, Integer defval, String description) {
-        super(prefix, shortName, Integer.class, category, null, defval, description);
+        this(prefix, shortName, category, Integer.MIN_VALUE, Integer.MAX_VALUE, defval, description);
     }
     
     public IntegerOption(String longName, Enum category, Integer defval, String description) {
+        this(longName, category, Integer.MIN_VALUE, Integer.MAX_VALUE, defval, description);
+    }
+
+    public IntegerOption(String prefix, String shortName, Enum category, int min, int max, Integer defval, String description) {
+        super(prefix, shortName, Integer.class, category, null, defval, description);
+        this.allowed = null;
+        this.min = min;
+        this.max = max;
+    }
+
+    public IntegerOption(String longName, Enum category, int min, int max, Integer defval, String description) {
         super(longName, Integer.class, category, null, defval, description);
+        this.allowed = null;
+        this.min = min;
+        this.max = max;
     }
 
     public Integer reloadValue() {
@@ -43,6 +72,37 @@ public class IntegerOption extends Option<Integer> {
             return defval;
         }
 
-        return Integer.parseInt(value);
+        long parsed;
+        try {
+            parsed = NumberParser.parse(value, NumberParser.SIZE_OR_MILLIS);
+        } catch (NumberFormatException nfe) {
+            return invalid(value, nfe.getMessage());
+        }
+
+        if (parsed < min || parsed > max) {
+            return invalid(value, "not in range [" + min + ", " + max + "]");
+        }
+
+        if (allowed != null && Arrays.binarySearch(allowed, (int) parsed) < 0) {
+            return invalid(value, "not one of " + optionsString());
+        }
+
+        return (int) parsed;
+    }
+
+    private static int[] allowed(Integer[] options) {
+        if (options == null) return null;
+
+        int[] allowed = new int[options.length];
+        for (int i = 0; i < options.length; i++) {
+            allowed[i] = options[i];
+        }
+        Arrays.sort(allowed);
+
+        return allowed;
     }
+
+    private final int[] allowed;
+    private final int min;
+    private final int max;
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list-valued Option, written as comma-separated elements such as
+ * "a:1,b:2".
+ *
+ * The property is scanned once, each element being parsed in place by an
+ * {@link ElementParser}, into an immutable list backed by an exactly-sized
+ * array. Whitespace around elements is ignored, and an empty property is an
+ * empty list. A comma, backslash or surrounding whitespace that is part of an
+ * element is escaped with a backslash, as in "a\,b"; a backslash before any
+ * other character is kept as written. A property with an invalid element is
+ * rejected in favor of the default, and reported by {@link #error()}.
+ *
+ * @param <T> the type of the list's elements
+ */
+public class ListOption<T> extends Option<List<T>> {
+    @SuppressWarnings("unchecked")
+    public ListOption(String prefix, String shortName, Enum category, ElementParser<T> parser, List<T> defval, String description) {
+        super(prefix, shortName, (Class) List.class, category, null, copyOf(defval), description);
+        this.parser = parser;
+    }
+
+    @SuppressWarnings("unchecked")
+    public ListOption(String longName, Enum category, ElementParser<T> parser, List<T> defval, String description) {
+        super(longName, (Class) List.class, category, null, copyOf(defval), description);
+        this.parser = parser;
+    }
+
+    protected List<T> reloadValue() {
+        String value = super.loadProperty();
+
+        if (value == null) {
+            return defval;
+        }
+
+        try {
+            return parse(value, parser);
+        } catch (IllegalArgumentException iae) {
+            return invalid(value, iae.getMessage());
+        }
+    }
+
+    /**
+     * Render the list as comma-separated elements, escaping any separators in
+     * them so the property parses back to the same elements.
+     */
+    @Override
+    protected String toProperty(List<T> value) {
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (T element : value) {
+            if (!first) sb.append(',');
+            appendEscaped(sb, element, SEPARATORS);
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parse a comma-separated list in a single scan.
+     *
+     * @param value the property string
+     * @param parser the parser for each element
+     * @param <T> the type of the elements
+     * @return an immutable list of the parsed elements
+     */
+    static <T> List<T> parse(String value, ElementParser<T> parser) {
+        Object[] elements = new Object[4];
+        int size = 0;
+
+        int length = value.length();
+        int start = skipWhitespace(value, 0, length);
+        if (start == length) return Collections.emptyList();
+
+        while (true) {
+            boolean escaped = false;
+            int end = start;
+            for (; end < length && value.charAt(end) != ','; end++) {
+                if (isEscape(value, end, length, SEPARATORS)) {
+                    escaped = true;
+                    end++;
+                }
+            }
+
+            if (size == elements.length) elements = Arrays.copyOf(elements, size * 2);
+            elements[size++] = parse(value, start, trimEnd(value, start, end), parser, escaped, SEPARATORS);
+
+            if (end == length) break;
+            start = skipWhitespace(value, end + 1, length);
+        }
+
+        return new ArrayBackedList<T>(size == elements.length ? elements : Arrays.copyOf(elements, size));
+    }
+
+    static int skipWhitespace(String value, int start, int end) {
+        while (start < end && Character.isWhitespace(value.charAt(start))) start++;
+        return start;
+    }
+
+    static int trimEnd(String value, int start, int end) {
+        while (end > start && Character.isWhitespace(value.charAt(end - 1)) && !isEscaped(value, start, end - 1)) end--;
+        return end;
+    }
+
+    /**
+     * Parse an element in place, or from an unescaped copy if it contains
+     * escapes.
+     */
+    static <T> T parse(String value, int start, int end, ElementParser<T> parser, boolean escaped, String separators) {
+        if (!escaped) return parser.parse(value, start, end);
+
+        String unescaped = unescape(value, start, end, separators);
+        return parser.parse(unescaped, 0, unescaped.length());
+    }
+
+    /**
+     * @return true if the character at the given index is a backslash
+     *         escaping the character after it
+     */
+    static boolean isEscape(String value, int index, int end, String separators) {
+        return value.charAt(index) == '\\' && index + 1 < end && isSpecial(value.charAt(index + 1), separators);
+    }
+
+    private static boolean isEscaped(String value, int start, int index) {
+        boolean escaped = false;
+        for (int i = index - 1; i >= start && value.charAt(i) == '\\'; i--) escaped = !escaped;
+        return escaped;
+    }
+
+    private static boolean isSpecial(char c, String separators) {
+        return c == '\\' || Character.isWhitespace(c) || separators.indexOf(c) >= 0;
+    }
+
+    private static String unescape(String value, int start, int end, String separators) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            if (isEscape(value, i, end, separators)) i++;
+            sb.append(value.charAt(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append an element, escaping backslashes, the given separators and any
+     * whitespace at either end, which would otherwise be trimmed.
+     */
+    static void appendEscaped(StringBuilder sb, Object element, String separators) {
+        String string = String.valueOf(element);
+        int last = string.length() - 1;
+        for (int i = 0; i <= last; i++) {
+            char c = string.charAt(i);
+            if (c == '\\' || separators.indexOf(c) >= 0 || ((i == 0 || i == last) && Character.isWhitespace(c))) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+
+    private static <T> List<T> copyOf(List<T> list) {
+        return list == null ? null : new ArrayBackedList<T>(list.toArray());
+    }
+
+    /**
+     * An immutable list over an array.
+     */
+    private static final class ArrayBackedList<T> extends AbstractList<T> implements RandomAccess {
+        ArrayBackedList(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        private final Object[] elements;
+    }
+
+    private static final String SEPARATORS = ",";
+
+    private final ElementParser<T> parser;
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A primitive long-based Option.
+ *
+ * The loaded value is also cached unboxed, so once loaded {@link #loadLong()}
+ * reads it without any allocation. Values may be written in hexadecimal with a
+ * 0x prefix and may separate digits with underscores. A value that cannot be
+ * parsed is rejected in favor of the default, and reported by {@link #error()}.
+ */
+public class LongOption extends Option<Long> {
+    public LongOption(String prefix, String shortName, Enum category, Long[] options, long defval, String description) {
+        super(prefix, shortName, Long.class, category, options, defval, description);
+    }
+
+    public LongOption(String longName, Enum category, Long[] options, long defval, String description) {
+        super(longName, Long.class, category, options, defval, description);
+    }
+
+    public LongOption(String prefix, String shortName, Enum category, long defval, String description) {
+        super(prefix, shortName, Long.class, category, null, defval, description);
+    }
+
+    public LongOption(String longName, Enum category, long defval, String description) {
+        super(longName, Long.class, category, null, defval, description);
+    }
+
+    /**
+     * @return the value of the option as a primitive long, loading if it has not been already.
+     */
+    public final long loadLong() {
+        Snapshot<Long> snapshot = snapshot();
+        if (snapshot.loaded && !isScoped()) {
+            if (OptionMetrics.ENABLED) countLoad();
+            return ((LongSnapshot) snapshot).longValue;
+        }
+
+        return load();
+    }
+
+    protected Long reloadValue() {
+        String value = super.loadProperty();
+
+        if (value == null) {
+            return defval;
+        }
+
+        try {
+            return NumberParser.parse(value, NumberParser.NONE);
+        } catch (NumberFormatException nfe) {
+            return invalid(value, nfe.getMessage());
+        }
+    }
+
+    @Override
+    Snapshot<Long> loadedSnapshot(Long value, long version, boolean specified, OptionError error) {
+        return new LongSnapshot(value, version, specified, error);
+    }
+
+    static final class LongSnapshot extends Snapshot<Long> {
+        LongSnapshot(Long value, long version, boolean specified, OptionError error) {
+            super(value, version, true, specified, error);
+            this.longValue = value;
+        }
+
+        final long longValue;
+    }
+}
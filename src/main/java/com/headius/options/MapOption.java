@@ -0,0 +1,240 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map-valued Option, written as entries separated by ';' or ',', with keys
+ * separated from values by '=' or ':', such as "a=1;b=3" or "a:1,b:2".
+ *
+ * The property is scanned once, keys and values being parsed in place by
+ * {@link ElementParser}s, into an immutable map backed by exactly-sized
+ * arrays of keys and values in the order written. Lookups scan the keys,
+ * which suits the handful of entries typical of configuration. Whitespace
+ * around keys and values and empty entries are ignored. A separator,
+ * backslash or surrounding whitespace that is part of a key or value is
+ * escaped with a backslash, as in "a\=b=1"; a backslash before any other
+ * character is kept as written. A property with an invalid or duplicate entry
+ * is rejected in favor of the default, and reported by {@link #error()}.
+ *
+ * @param <K> the type of the map's keys
+ * @param <V> the type of the map's values
+ */
+public class MapOption<K, V> extends Option<Map<K, V>> {
+    @SuppressWarnings("unchecked")
+    public MapOption(String prefix, String shortName, Enum category, ElementParser<K> keyParser, ElementParser<V> valueParser, Map<K, V> defval, String description) {
+        super(prefix, shortName, (Class) Map.class, category, null, copyOf(defval), description);
+        this.keyParser = keyParser;
+        this.valueParser = valueParser;
+    }
+
+    @SuppressWarnings("unchecked")
+    public MapOption(String longName, Enum category, ElementParser<K> keyParser, ElementParser<V> valueParser, Map<K, V> defval, String description) {
+        super(longName, (Class) Map.class, category, null, copyOf(defval), description);
+        this.keyParser = keyParser;
+        this.valueParser = valueParser;
+    }
+
+    protected Map<K, V> reloadValue() {
+        String value = super.loadProperty();
+
+        if (value == null) {
+            return defval;
+        }
+
+        try {
+            return parse(value, keyParser, valueParser);
+        } catch (IllegalArgumentException iae) {
+            return invalid(value, iae.getMessage());
+        }
+    }
+
+    /**
+     * Render the map as key=value entries separated by ';', escaping any
+     * separators in the keys and values so the property parses back to the
+     * same entries.
+     */
+    @Override
+    protected String toProperty(Map<K, V> value) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<K, V> entry : value.entrySet()) {
+            if (sb.length() > 0) sb.append(';');
+            ListOption.appendEscaped(sb, entry.getKey(), SEPARATORS);
+            sb.append('=');
+            ListOption.appendEscaped(sb, entry.getValue(), SEPARATORS);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parse a map in a single scan.
+     *
+     * @param value the property string
+     * @param keyParser the parser for each key
+     * @param valueParser the parser for each value
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return an immutable map of the parsed entries
+     */
+    static <K, V> Map<K, V> parse(String value, ElementParser<K> keyParser, ElementParser<V> valueParser) {
+        Object[] keys = new Object[4];
+        Object[] values = new Object[4];
+        int size = 0;
+
+        int length = value.length();
+        int start = 0;
+        while (start < length) {
+            start = ListOption.skipWhitespace(value, start, length);
+
+            boolean escaped = false;
+            int separator = -1;
+            int end = start;
+            for (char c; end < length && (c = value.charAt(end)) != ';' && c != ','; end++) {
+                if (ListOption.isEscape(value, end, length, SEPARATORS)) {
+                    escaped = true;
+                    end++;
+                } else if (separator < 0 && (c == '=' || c == ':')) {
+                    separator = end;
+                }
+            }
+
+            if (end > start) {
+                if (separator < 0) {
+                    throw new IllegalArgumentException("entry without a value: \"" + value.substring(start, end) + "\"");
+                }
+
+                K key = ListOption.parse(value, start, ListOption.trimEnd(value, start, separator), keyParser, escaped, SEPARATORS);
+                int valueStart = ListOption.skipWhitespace(value, separator + 1, end);
+                V parsed = ListOption.parse(value, valueStart, ListOption.trimEnd(value, valueStart, end), valueParser, escaped, SEPARATORS);
+
+                for (int i = 0; i < size; i++) {
+                    if (keys[i].equals(key)) throw new IllegalArgumentException("duplicate key: \"" + key + "\"");
+                }
+
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                keys[size] = key;
+                values[size] = parsed;
+                size++;
+            }
+
+            start = end + 1;
+        }
+
+        if (size == 0) return Collections.emptyMap();
+
+        return new ArrayMap<K, V>(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+    }
+
+    private static <K, V> Map<K, V> copyOf(Map<K, V> map) {
+        if (map == null) return null;
+
+        Object[] keys = new Object[map.size()];
+        Object[] values = new Object[map.size()];
+        int i = 0;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        return new ArrayMap<K, V>(keys, values);
+    }
+
+    /**
+     * An immutable map over parallel arrays of keys and values.
+     */
+    private static final class ArrayMap<K, V> extends AbstractMap<K, V> {
+        ArrayMap(Object[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) return (V) values[i];
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            for (Object k : keys) {
+                if (k.equals(key)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new Iterator<Entry<K, V>>() {
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @SuppressWarnings("unchecked")
+                        public Entry<K, V> next() {
+                            if (index >= keys.length) throw new NoSuchElementException();
+
+                            Entry<K, V> entry = new SimpleImmutableEntry<K, V>((K) keys[index], (V) values[index]);
+                            index++;
+                            return entry;
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+
+                        private int index;
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+
+        private final Object[] keys;
+        private final Object[] values;
+    }
+
+    private static final String SEPARATORS = ";,=:";
+
+    private final ElementParser<K> keyParser;
+    private final ElementParser<V> valueParser;
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * Parses integral option values in a single pass over the property string,
+ * without allocating unless the value is invalid.
+ *
+ * Values may be negative, may be written in hexadecimal with a 0x prefix, may
+ * separate digits with underscores, and may end with one of a table of unit
+ * suffixes, matched ignoring case, which multiply the value.
+ */
+final class NumberParser {
+    private NumberParser() {
+    }
+
+    /**
+     * Size suffixes, in bytes: k, m, g and t are powers of 1024, optionally
+     * followed by b.
+     */
+    static final Suffixes SIZE = new Suffixes(
+            new String[] {"b", "k", "kb", "m", "mb", "g", "gb", "t", "tb"},
+            new long[] {1, 1L << 10, 1L << 10, 1L << 20, 1L << 20, 1L << 30, 1L << 30, 1L << 40, 1L << 40});
+
+    /**
+     * Duration suffixes, in milliseconds: ms, s, min, h and d.
+     */
+    static final Suffixes MILLIS = new Suffixes(
+            new String[] {"ms", "s", "min", "h", "d"},
+            new long[] {1, 1000, 60 * 1000, 60 * 60 * 1000, 24 * 60 * 60 * 1000});
+
+    /**
+     * No suffixes, for plain numbers.
+     */
+    static final Suffixes NONE = new Suffixes(new String[0], new long[0]);
+
+    /**
+     * Both size and duration suffixes, as accepted by integer options. The
+     * suffixes do not overlap, since minutes are written "min".
+     */
+    static final Suffixes SIZE_OR_MILLIS = SIZE.and(MILLIS);
+
+    /**
+     * Parse the given value.
+     *
+     * @param value the value to parse
+     * @param suffixes the unit suffixes the value may end with
+     * @return the parsed value, multiplied by its suffix
+     * @throws NumberFormatException if the value is malformed, has an unknown
+     *         suffix, or does not fit in a long
+     */
+    static long parse(String value, Suffixes suffixes) {
+        return parse(value, 0, value.length(), suffixes);
+    }
+
+    /**
+     * Parse the given region of a value.
+     *
+     * @param value the string containing the value
+     * @param start the index of the value's first character
+     * @param end the index after the value's last character
+     * @param suffixes the unit suffixes the value may end with
+     * @return the parsed value, multiplied by its suffix
+     * @throws NumberFormatException if the value is malformed, has an unknown
+     *         suffix, or does not fit in a long
+     */
+    static long parse(String value, int start, int end, Suffixes suffixes) {
+        int i = start;
+
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+
+        int radix = 10;
+        if (i + 1 < end && value.charAt(i) == '0' && (value.charAt(i + 1) == 'x' || value.charAt(i + 1) == 'X')) {
+            radix = 16;
+            i += 2;
+        }
+
+        // accumulate negatively, so Long.MIN_VALUE can be parsed
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / radix;
+        long result = 0;
+        int digits = 0;
+        boolean underscore = false;
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+
+            if (c == '_') {
+                if (digits == 0 || underscore) throw invalid(value, start, end, "misplaced underscore");
+                underscore = true;
+                continue;
+            }
+
+            int digit = Character.digit(c, radix);
+            if (digit < 0) break;
+
+            if (result < multiplyLimit) throw invalid(value, start, end, "out of range");
+            result *= radix;
+            if (result < limit + digit) throw invalid(value, start, end, "out of range");
+            result -= digit;
+
+            digits++;
+            underscore = false;
+        }
+
+        if (digits == 0) throw invalid(value, start, end, "no digits");
+        if (underscore) throw invalid(value, start, end, "misplaced underscore");
+
+        if (i < end) {
+            if (radix == 16) throw invalid(value, start, end, "unit suffix on hexadecimal value");
+
+            long multiplier = suffixes.multiplier(value, i, end);
+            if (multiplier == 0) throw invalid(value, start, end, "unknown unit suffix");
+
+            if (result < limit / multiplier) throw invalid(value, start, end, "out of range");
+            result *= multiplier;
+        }
+
+        return negative ? result : -result;
+    }
+
+    private static NumberFormatException invalid(String value, int start, int end, String reason) {
+        return new NumberFormatException(reason + ": \"" + value.substring(start, end) + "\"");
+    }
+
+    /**
+     * A table of unit suffixes and the multipliers they stand for.
+     */
+    static final class Suffixes {
+        Suffixes(String[] names, long[] multipliers) {
+            this.names = names;
+            this.multipliers = multipliers;
+        }
+
+        Suffixes and(Suffixes other) {
+            String[] names = new String[this.names.length + other.names.length];
+            long[] multipliers = new long[names.length];
+
+            System.arraycopy(this.names, 0, names, 0, this.names.length);
+            System.arraycopy(other.names, 0, names, this.names.length, other.names.length);
+            System.arraycopy(this.multipliers, 0, multipliers, 0, this.multipliers.length);
+            System.arraycopy(other.multipliers, 0, multipliers, this.multipliers.length, other.multipliers.length);
+
+            return new Suffixes(names, multipliers);
+        }
+
+        /**
+         * @return the multiplier for the suffix between the given indexes, or 0
+         *         if there is no such suffix
+         */
+        long multiplier(String value, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].length() == length && value.regionMatches(true, start, names[i], 0, length)) {
+                    return multipliers[i];
+                }
+            }
+            return 0;
+        }
+
+        private final String[] names;
+        private final long[] multipliers;
+    }
+}
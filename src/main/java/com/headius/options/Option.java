@@ -16,12 +16,21 @@
 
 package com.headius.options;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Represents a single option, with a category, name, value type,
@@ -33,10 +42,22 @@ import java.util.List;
  * @see IntegerOption
  * @see BooleanOption
  * @see EnumerationOption
+ * @see IntOption
+ * @see LongOption
+ * @see DoubleOption
+ * @see BoolOption
+ * @see DurationOption
+ * @see SizeOption
+ * @see ListOption
+ * @see MapOption
  * @see Option#string 
  * @see Option#integer 
  * @see Option#bool 
  * @see Option#enumeration 
+ * @see Option#intOption
+ * @see Option#longOption
+ * @see Option#doubleOption
+ * @see Option#boolOption
  *
  * @param <T> the type of value associated with the option
  */
@@ -63,7 +84,6 @@ public abstract class Option<T> {
         this.options = options;
         this.defval = defval;
         this.description = description;
-        this.specified = false;
     }
     
     /**
@@ -87,7 +107,6 @@ public abstract class Option<T> {
         this.options = options;
         this.defval = defval;
         this.description = description;
-        this.specified = false;
     }
     
     /**
@@ -387,6 +406,39 @@ public abstract class Option<T> {
         return new IntegerOption(longName, category, options, defval, description);
     }
     
+    /**
+     * Create a new Integer-based option accepting values within the given range.
+     *
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param min the smallest value accepted
+     * @param max the largest value accepted
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new Integer-based Option
+     */
+    public static Option<Integer> integer(String prefix, String shortName, Enum category, int min, int max, Integer defval, String description) {
+        return new IntegerOption(prefix, shortName, category, min, max, defval, description);
+    }
+    
+    /**
+     * Create a new Integer-based option accepting values within the given range.
+     *
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param min the smallest value accepted
+     * @param max the largest value accepted
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new Integer-based Option
+     */
+    public static Option<Integer> integer(String longName, Enum category, int min, int max, Integer defval, String description) {
+        return new IntegerOption(longName, category, min, max, defval, description);
+    }
+    
     /**
      * Create a new Enumeration-based option with the given configuration.
      *
@@ -429,7 +481,7 @@ public abstract class Option<T> {
      * @return a new Enumeration-based Option
      */
     public static <T extends Enum<T>> Option<T> enumeration(String prefix, String shortName, Enum category, T defval, String description) {
-        return new EnumerationOption(prefix, shortName, category, defval.getClass(), defval, description);
+        return new EnumerationOption(prefix, shortName, category, defval.getDeclaringClass(), defval, description);
     }
     
     /**
@@ -444,254 +496,1497 @@ public abstract class Option<T> {
      * @return a new Enumeration-based Option
      */
     public static <T extends Enum<T>> Option<T> enumeration(String longName, Enum category, T defval, String description) {
-        return new EnumerationOption(longName, category, defval.getClass(), defval, description);
+        return new EnumerationOption(longName, category, defval.getDeclaringClass(), defval, description);
     }
     
     /**
-     * Format the given options to show their loaded values in the current JVM.
+     * Create a new Enumeration-based option accepting the given constants,
+     * such as the result of the enum's values() method. Unlike the other
+     * enumeration factories, this does not look up the enum's constants
+     * reflectively, so it is suitable for options created while building a
+     * native image or archive.
      *
-     * @param options the options to format
-     * @return a formatted string representing the options
+     * @param <T> the type of the enum
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param options the enum constants accepted by the option
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new Enumeration-based Option
+     * @throws IllegalArgumentException if no constants are given
      */
-    public static String formatValues(Option... options) {
-        return formatValues(Arrays.asList(options));
+    public static <T extends Enum<T>> Option<T> enumeration(String prefix, String shortName, Enum category, T[] options, T defval, String description) {
+        return new EnumerationOption<T>(prefix, shortName, category, declaringClass(options), options, defval, description);
     }
     
     /**
-     * Format the given options to show their loaded values in the current JVM.
+     * Create a new Enumeration-based option accepting the given constants,
+     * such as the result of the enum's values() method, without looking them
+     * up reflectively.
      *
-     * @param options the options to format
-     * @return a formatted string representing the options
+     * @param <T> the type of the enum
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param options the enum constants accepted by the option
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new Enumeration-based Option
+     * @throws IllegalArgumentException if no constants are given
      */
-    public static String formatValues(Collection<Option> options) {
-        StringBuilder sb = new StringBuilder();
-        List<Option> sorted = new ArrayList<Option>(options);
-        Collections.sort(sorted, OptionComparator);
-        
-        Enum category = null;
-        for (Option option : sorted) {
-            if (category != option.category) {
-                category = option.category;
-                sb.append('\n').append(category).append('\n');
-            }
-            sb
-                    .append(option.displayName)
-                    .append('=');
-            option.load();
-            if (option.isSpecified() || option.defval != null) {
-                sb.append(encodeWhitespace(option.load()));
-            } else {
-                sb.append("<unspecified>");
-            }
-            sb.append('\n');
-        }
-        return sb.toString();
+    public static <T extends Enum<T>> Option<T> enumeration(String longName, Enum category, T[] options, T defval, String description) {
+        return new EnumerationOption<T>(longName, category, declaringClass(options), options, defval, description);
     }
     
     /**
-     * Format the given options in a way suitable for use as a configuration
-     * file or documentation.
+     * Create a new Enumeration-based option accepting the given constants,
+     * which may also be named by the given aliases.
      *
-     * @param options the options to format
-     * @return a formatted string representing the options as a config file or document
+     * @param <T> the type of the enum
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param options the enum constants accepted by the option
+     * @param aliases additional names for the constants
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new Enumeration-based Option
+     * @throws IllegalArgumentException if no constants are given
      */
-    public static String formatOptions(Option... options) {
-        return formatOptions(Arrays.asList(options));
+    public static <T extends Enum<T>> Option<T> enumeration(String prefix, String shortName, Enum category, T[] options, Map<String, T> aliases, T defval, String description) {
+        return new EnumerationOption<T>(prefix, shortName, category, declaringClass(options), options, aliases, defval, description);
     }
-
+    
     /**
-     * Format the given options in a way suitable for use as a configuration
-     * file or documentation.
+     * Create a new Enumeration-based option accepting the given constants,
+     * which may also be named by the given aliases.
      *
-     * @param options the options to format
-     * @return a formatted string representing the options as a config file or document
+     * @param <T> the type of the enum
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param options the enum constants accepted by the option
+     * @param aliases additional names for the constants
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new Enumeration-based Option
+     * @throws IllegalArgumentException if no constants are given
      */
-    public static String formatOptions(Collection<Option> options) {
-        StringBuilder sb = new StringBuilder();
-        List<Option> sorted = new ArrayList<Option>(options);
-        Collections.sort(sorted, OptionComparator);
-        
-        Enum category = null;
-        for (Option option : sorted) {
-            if (category != option.category) {
-                category = option.category;
-                sb.append("\n################################################################################");
-                sb.append("\n# ").append(category);
-                sb.append("\n################################################################################\n\n");
-            }
-            sb.append("# ").append(option.description).append('\n');
-            
-            if (option.options != null) {
-                sb.append("# Options: ").append(Arrays.toString(option.options));
-                if (option.defval != null) {
-                    sb.append(", Default: ").append(encodeWhitespace(option.defval));
-                }
-                sb.append(".\n");
-            } else if (option.defval != null) {
-                sb.append("# Default: ").append(encodeWhitespace(option.defval));
-                sb.append(".\n");
-            }
-            
-            sb.append("\n#");
-            if (option.defval != null) {
-                sb.append(option.displayName).append('=').append(encodeWhitespace(option.defval.toString()));
-            } else {
-                sb.append(option.displayName).append('=');
-            }
-            
-            sb.append("\n\n");
-        }
-
-        return sb.toString();
+    public static <T extends Enum<T>> Option<T> enumeration(String longName, Enum category, T[] options, Map<String, T> aliases, T defval, String description) {
+        return new EnumerationOption<T>(longName, category, declaringClass(options), options, aliases, defval, description);
     }
     
-    private static Comparator<Option> OptionComparator = new Comparator<Option>() {
-        public int compare(Option o1, Option o2) {
-            int catComp = o1.category.compareTo(o2.category);
-            if (catComp != 0) return catComp;
-            return o1.displayName.compareTo(o2.displayName);
-        }
-    };
-    
-    private static String encodeWhitespace(Object obj) {
-        if (obj == null) return "null";
-        
-        String str = obj.toString();
-        StringBuilder sb = new StringBuilder(str.length() * 2);
-        
-        boolean hasWhitespace = false;
-        
-        for (char c : str.toCharArray()) {
-            if (Character.isWhitespace(c)) {
-                hasWhitespace = true;
-                switch (c) {
-                    case '\t':
-                        sb.append("\\t");
-                        break;
-                    case '\n':
-                        sb.append("\\n");
-                        break;
-                    default:
-                        sb.append(c);
-                        break;
-                }
-            } else {
-                sb.append(c);
-            }
-        }
-        
-        if (hasWhitespace) {
-            return "\"" + sb.toString() + "\"";
-        } else {
-            return str;
-        }
-    }
+    /**
+     * @return the enum class of the given constants, which cannot be empty
+     */
+    private static <T extends Enum<T>> Class<T> declaringClass(T[] options) {
+        if (options.length == 0) throw new IllegalArgumentException("no enum constants given");
 
-    @Override
-    public String toString() {
-        return longName;
+        return options[0].getDeclaringClass();
     }
 
     /**
-     * Load the option's property, as if by calling java.lang.System#getProperty
+     * Create a new primitive int option with the given configuration.
      *
-     * @return the option's property's current value, or a value previously forced
-     * into this option by {@link #force(String)}
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive int Option
      */
-    public synchronized String loadProperty() {
-        String value = forced;
-        if (value != null) return value;
-
-        try {
-            value = System.getProperty(longName);
-        } catch (SecurityException se) {
-        }
-        
-        if (value != null) specified = true;
-
-        return value;
+    public static IntOption intOption(String prefix, String shortName, Enum category, int defval, String description) {
+        return new IntOption(prefix, shortName, category, defval, description);
     }
-
+    
     /**
-     * @return true if the option's property was specified, false otherwise.
+     * Create a new primitive int option with the given configuration.
+     *
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive int Option
      */
-    public boolean isSpecified() {
-        return specified;
+    public static IntOption intOption(String longName, Enum category, int defval, String description) {
+        return new IntOption(longName, category, defval, description);
     }
-
+    
     /**
-     * @return the value of the option, loading if it has not been already.
+     * Create a new primitive int option with the given configuration.
+     *
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param options a list of supported for the option, or null if the set is
+     *                not applicable
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive int Option
      */
-    public final T load() {
-        if (loaded) return value;
-        
-        return reload();
+    public static IntOption intOption(String prefix, String shortName, Enum category, Integer[] options, int defval, String description) {
+        return new IntOption(prefix, shortName, category, options, defval, description);
     }
     
     /**
-     * Force a load of the option's property and return the loaded value.
+     * Create a new primitive int option with the given configuration.
      *
-     * @return the loaded value
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param options a list of supported for the option, or null if the set is
+     *                not applicable
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive int Option
      */
-    public final synchronized T reload() {
-        if (loaded) return value;
-
-        value = reloadValue();
-        loaded = true;
-        
-        return value;
+    public static IntOption intOption(String longName, Enum category, Integer[] options, int defval, String description) {
+        return new IntOption(longName, category, options, defval, description);
+    }
+    
+    /**
+     * Create a new primitive int option accepting values within the given range.
+     *
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param min the smallest value accepted
+     * @param max the largest value accepted
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive int Option
+     */
+    public static IntOption intOption(String prefix, String shortName, Enum category, int min, int max, int defval, String description) {
+        return new IntOption(prefix, shortName, category, min, max, defval, description);
     }
 
     /**
-     * Force the property value to the given value for all future loads and reloads.
+     * Create a new primitive int option accepting values within the given range.
      *
-     * @param value a value to force for the Option's property, as if set in JVM
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param min the smallest value accepted
+     * @param max the largest value accepted
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive int Option
      */
-    public synchronized void force(String value) {
-        forced = value;
-        loaded = false;
-        reload();
+    public static IntOption intOption(String longName, Enum category, int min, int max, int defval, String description) {
+        return new IntOption(longName, category, min, max, defval, description);
     }
 
     /**
-     * Undoes any previous force, and goes back to an unloaded state.
+     * Create a new primitive long option with the given configuration.
+     *
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive long Option
      */
-    public synchronized void unforce() {
-        forced = null;
-        loaded = false;
-        value = null;
+    public static LongOption longOption(String prefix, String shortName, Enum category, long defval, String description) {
+        return new LongOption(prefix, shortName, category, defval, description);
     }
     
     /**
-     * Perform the appropriate load and conversion for the option's property.
+     * Create a new primitive long option with the given configuration.
      *
-     * @return the updated value after reload
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive long Option
      */
-    protected abstract T reloadValue();
+    public static LongOption longOption(String longName, Enum category, long defval, String description) {
+        return new LongOption(longName, category, defval, description);
+    }
     
     /**
-     * If the option has a short name, return it. Otherwise null.
+     * Create a new primitive double option with the given configuration.
      *
-     * @return the short name, or else null
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive double Option
      */
-    public String shortName() {
-        return shortName;
+    public static DoubleOption doubleOption(String prefix, String shortName, Enum category, double defval, String description) {
+        return new DoubleOption(prefix, shortName, category, defval, description);
     }
     
     /**
-     * @return the full property name for the option.
+     * Create a new primitive double option with the given configuration.
+     *
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive double Option
      */
-    public String propertyName() {
-        return longName;
+    public static DoubleOption doubleOption(String longName, Enum category, double defval, String description) {
+        return new DoubleOption(longName, category, defval, description);
     }
     
     /**
-     * If the property has a prefix, return it. Otherwise null.
+     * Create a new primitive boolean option with the given configuration.
      *
-     * @return the property prefix, or else null
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive boolean Option
      */
-    public String prefix() {
-        return prefix;
+    public static BoolOption boolOption(String prefix, String shortName, Enum category, boolean defval, String description) {
+        return new BoolOption(prefix, shortName, category, defval, description);
+    }
+    
+    /**
+     * Create a new primitive boolean option with the given configuration.
+     *
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new primitive boolean Option
+     */
+    public static BoolOption boolOption(String longName, Enum category, boolean defval, String description) {
+        return new BoolOption(longName, category, defval, description);
+    }
+
+    /**
+     * Create a new duration option with the given configuration.
+     *
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param unit the unit of the option's value
+     * @param defval the default value for the option, in the given unit
+     * @param description a description for the option
+     *
+     * @return a new duration Option
+     */
+    public static DurationOption durationOption(String prefix, String shortName, Enum category, TimeUnit unit, long defval, String description) {
+        return new DurationOption(prefix, shortName, category, unit, defval, description);
+    }
+
+    /**
+     * Create a new duration option with the given configuration.
+     *
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param unit the unit of the option's value
+     * @param defval the default value for the option, in the given unit
+     * @param description a description for the option
+     *
+     * @return a new duration Option
+     */
+    public static DurationOption durationOption(String longName, Enum category, TimeUnit unit, long defval, String description) {
+        return new DurationOption(longName, category, unit, defval, description);
+    }
+
+    /**
+     * Create a new size option with the given configuration.
+     *
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option, in bytes
+     * @param description a description for the option
+     *
+     * @return a new size Option
+     */
+    public static SizeOption sizeOption(String prefix, String shortName, Enum category, long defval, String description) {
+        return new SizeOption(prefix, shortName, category, defval, description);
+    }
+
+    /**
+     * Create a new size option with the given configuration.
+     *
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param defval the default value for the option, in bytes
+     * @param description a description for the option
+     *
+     * @return a new size Option
+     */
+    public static SizeOption sizeOption(String longName, Enum category, long defval, String description) {
+        return new SizeOption(longName, category, defval, description);
+    }
+
+    /**
+     * Create a new list option with the given configuration.
+     *
+     * @param <T> the type of the list's elements
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param parser the parser for the list's elements
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new list Option
+     */
+    public static <T> ListOption<T> listOption(String prefix, String shortName, Enum category, ElementParser<T> parser, List<T> defval, String description) {
+        return new ListOption<T>(prefix, shortName, category, parser, defval, description);
+    }
+
+    /**
+     * Create a new list option with the given configuration.
+     *
+     * @param <T> the type of the list's elements
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param parser the parser for the list's elements
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new list Option
+     */
+    public static <T> ListOption<T> listOption(String longName, Enum category, ElementParser<T> parser, List<T> defval, String description) {
+        return new ListOption<T>(longName, category, parser, defval, description);
+    }
+
+    /**
+     * Create a new map option with the given configuration.
+     *
+     * @param <K> the type of the map's keys
+     * @param <V> the type of the map's values
+     * @param prefix the prefix used for loading this option from properties
+     * @param shortName the rest of the property name
+     * @param category the category to which this option belongs
+     * @param keyParser the parser for the map's keys
+     * @param valueParser the parser for the map's values
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new map Option
+     */
+    public static <K, V> MapOption<K, V> mapOption(String prefix, String shortName, Enum category, ElementParser<K> keyParser, ElementParser<V> valueParser, Map<K, V> defval, String description) {
+        return new MapOption<K, V>(prefix, shortName, category, keyParser, valueParser, defval, description);
+    }
+
+    /**
+     * Create a new map option with the given configuration.
+     *
+     * @param <K> the type of the map's keys
+     * @param <V> the type of the map's values
+     * @param longName the property name
+     * @param category the category to which this option belongs
+     * @param keyParser the parser for the map's keys
+     * @param valueParser the parser for the map's values
+     * @param defval the default value for the option
+     * @param description a description for the option
+     *
+     * @return a new map Option
+     */
+    public static <K, V> MapOption<K, V> mapOption(String longName, Enum category, ElementParser<K> keyParser, ElementParser<V> valueParser, Map<K, V> defval, String description) {
+        return new MapOption<K, V>(longName, category, keyParser, valueParser, defval, description);
+    }
+
+    /**
+     * Create a new option computed from other options, such as a pool size
+     * derived from a multiplier and a maximum.
+     *
+     * @param <T> the type of the derived value
+     * @param prefix the prefix used for naming this option
+     * @param shortName the rest of the option's name
+     * @param type the type of the derived value
+     * @param category the category to which this option belongs
+     * @param derivation the computation of the value from the inputs
+     * @param description a description for the option
+     * @param inputs the options from which the value is computed
+     *
+     * @return a new derived Option
+     * @see DerivedOption
+     */
+    public static <T> DerivedOption<T> derived(String prefix, String shortName, Class<T> type, Enum category, Derivation<T> derivation, String description, Option<?>... inputs) {
+        return new DerivedOption<T>(prefix, shortName, type, category, derivation, description, inputs);
+    }
+
+    /**
+     * Create a new option computed from other options, such as a pool size
+     * derived from a multiplier and a maximum.
+     *
+     * @param <T> the type of the derived value
+     * @param longName the option's name
+     * @param type the type of the derived value
+     * @param category the category to which this option belongs
+     * @param derivation the computation of the value from the inputs
+     * @param description a description for the option
+     * @param inputs the options from which the value is computed
+     *
+     * @return a new derived Option
+     * @see DerivedOption
+     */
+    public static <T> DerivedOption<T> derived(String longName, Class<T> type, Enum category, Derivation<T> derivation, String description, Option<?>... inputs) {
+        return new DerivedOption<T>(longName, type, category, derivation, description, inputs);
+    }
+    
+    /**
+     * Open a new scope of option overrides for the current thread, to be
+     * populated with {@link OptionScope#with(Option, String)} and closed when
+     * done.
+     *
+     * @return a new scope, already current on this thread
+     * @see OptionScope
+     */
+    public static OptionScope scope() {
+        return new OptionScope();
+    }
+
+    /**
+     * Format the given options to show their loaded values in the current JVM.
+     *
+     * @param options the options to format
+     * @return a formatted string representing the options
+     */
+    public static String formatValues(Option... options) {
+        return formatValues(Arrays.asList(options));
+    }
+    
+    /**
+     * Format the given options to show their loaded values in the current JVM.
+     *
+     * @param options the options to format
+     * @return a formatted string representing the options
+     */
+    public static String formatValues(Collection<Option> options) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            formatValues(sb, options);
+        } catch (IOException ioe) {
+            // StringBuilder does not throw IOException
+            throw new RuntimeException(ioe);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Format the given options to show their loaded values in the current JVM,
+     * writing directly to the given output rather than building a String.
+     *
+     * @param out the output to which the formatted options are written
+     * @param options the options to format
+     * @throws IOException if the output cannot be written
+     */
+    public static void formatValues(Appendable out, Collection<Option> options) throws IOException {
+        formatValues(out, new SortedOptions(options));
+    }
+    
+    /**
+     * Format the given pre-sorted options to show their loaded values in the
+     * current JVM, writing directly to the given output. Values of options
+     * resolved by a registry or forced are followed by their {@link #origin()}.
+     *
+     * @param out the output to which the formatted options are written
+     * @param options the sorted options to format
+     * @throws IOException if the output cannot be written
+     */
+    public static void formatValues(Appendable out, SortedOptions options) throws IOException {
+        for (Map.Entry<Enum, List<Option>> entry : options.byCategory().entrySet()) {
+            out.append('\n').append(entry.getKey().toString()).append('\n');
+            
+            for (Option option : entry.getValue()) {
+                out
+                        .append(option.displayName)
+                        .append('=');
+                Object value = option.load();
+                if (option.isSpecified() || option.defval != null || (option instanceof DerivedOption && value != null)) {
+                    appendEncoded(out, property(option, value));
+                    String origin = option.origin();
+                    if (origin != null) out.append(" (").append(origin).append(')');
+                } else {
+                    out.append("<unspecified>");
+                }
+                out.append('\n');
+            }
+        }
+    }
+
+    /**
+     * Format the given pre-sorted options to show how often each has been
+     * used, writing directly to the given output. Nothing is written unless
+     * {@link OptionMetrics#ENABLED}.
+     *
+     * @param out the output to which the formatted metrics are written
+     * @param options the sorted options to format
+     * @throws IOException if the output cannot be written
+     * @see OptionMetrics
+     */
+    public static void formatMetrics(Appendable out, SortedOptions options) throws IOException {
+        if (!OptionMetrics.ENABLED) return;
+
+        for (Map.Entry<Enum, List<Option>> entry : options.byCategory().entrySet()) {
+            out.append('\n').append(entry.getKey().toString()).append('\n');
+
+            for (Option option : entry.getValue()) {
+                out
+                        .append(option.displayName)
+                        .append(": ")
+                        .append(option.metrics().toString())
+                        .append('\n');
+            }
+        }
+    }
+    
+    /**
+     * Format the given options in a way suitable for use as a configuration
+     * file or documentation.
+     *
+     * @param options the options to format
+     * @return a formatted string representing the options as a config file or document
+     */
+    public static String formatOptions(Option... options) {
+        return formatOptions(Arrays.asList(options));
+    }
+
+    /**
+     * Format the given options in a way suitable for use as a configuration
+     * file or documentation.
+     *
+     * @param options the options to format
+     * @return a formatted string representing the options as a config file or document
+     */
+    public static String formatOptions(Collection<Option> options) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            formatOptions(sb, options);
+        } catch (IOException ioe) {
+            // StringBuilder does not throw IOException
+            throw new RuntimeException(ioe);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Format the given options in a way suitable for use as a configuration
+     * file or documentation, writing directly to the given output rather than
+     * building a String.
+     *
+     * @param out the output to which the formatted options are written
+     * @param options the options to format
+     * @throws IOException if the output cannot be written
+     */
+    public static void formatOptions(Appendable out, Collection<Option> options) throws IOException {
+        formatOptions(out, new SortedOptions(options));
+    }
+
+    /**
+     * Format the given pre-sorted options in a way suitable for use as a
+     * configuration file or documentation, writing directly to the given output.
+     *
+     * @param out the output to which the formatted options are written
+     * @param options the sorted options to format
+     * @throws IOException if the output cannot be written
+     */
+    public static void formatOptions(Appendable out, SortedOptions options) throws IOException {
+        for (Map.Entry<Enum, List<Option>> entry : options.byCategory().entrySet()) {
+            out.append("\n################################################################################");
+            out.append("\n# ").append(entry.getKey().toString());
+            out.append("\n################################################################################\n\n");
+            
+            for (Option option : entry.getValue()) {
+                out.append("# ").append(option.description).append('\n');
+                
+                if (option.options != null) {
+                    out.append("# Options: ").append(option.optionsString());
+                    if (option.defval != null) {
+                        out.append(", Default: ");
+                        appendEncoded(out, property(option, option.defval));
+                    }
+                    out.append(".\n");
+                } else if (option.defval != null) {
+                    out.append("# Default: ");
+                    appendEncoded(out, property(option, option.defval));
+                    out.append(".\n");
+                }
+                
+                out.append("\n#");
+                out.append(option.displayName).append('=');
+                if (option.defval != null) {
+                    appendEncoded(out, property(option, option.defval));
+                }
+                
+                out.append("\n\n");
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    static String property(Option option, Object value) {
+        return value == null ? null : option.toProperty(value);
+    }
+
+    private static void appendEncoded(Appendable out, Object obj) throws IOException {
+        if (obj == null) {
+            out.append("null");
+            return;
+        }
+        
+        String str = obj.toString();
+        
+        if (!hasWhitespace(str)) {
+            out.append(str);
+            return;
+        }
+        
+        out.append('"');
+        for (int i = 0, length = str.length(); i < length; i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                default:
+                    out.append(c);
+                    break;
+            }
+        }
+        out.append('"');
+    }
+    
+    private static boolean hasWhitespace(String str) {
+        for (int i = 0, length = str.length(); i < length; i++) {
+            if (Character.isWhitespace(str.charAt(i))) return true;
+        }
+        
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return longName;
+    }
+
+    /**
+     * Describe where this option's current value came from: "forced" if a value
+     * has been forced into it, otherwise the name of the registry source that
+     * supplied its property, or "default" if no source did.
+     *
+     * @return the origin of the option's value, or null if the option has not
+     *         been resolved by a loaded registry and was not forced
+     */
+    public String origin() {
+        if (forced != null) return "forced";
+
+        OptionRegistry registry = this.registry;
+        return registry == null ? null : registry.origin(registryIndex);
+    }
+
+    /**
+     * Load the option's property, as if by calling java.lang.System#getProperty
+     *
+     * If the option belongs to an {@link OptionRegistry} that has been loaded,
+     * the property is read from the registry's resolution of its sources instead.
+     *
+     * @return the option's property's current value, or a value previously forced
+     * into this option by {@link #force(String)}
+     */
+    public String loadProperty() {
+        Parse<?> parse = parsing != 0 ? Parse.of(this) : null;
+        if (parse != null && !parse.reading) return parse.property;
+
+        String value = forced;
+        if (value != null) return value;
+
+        OptionRegistry registry = this.registry;
+        OptionRegistry.Resolution resolution = registry == null ? null : registry.resolution();
+
+        // an option registered after loading may not be in an older resolution
+        if (resolution != null && registryIndex < resolution.values.length) {
+            value = resolution.values[registryIndex];
+        } else {
+            try {
+                value = System.getProperty(longName);
+            } catch (SecurityException se) {
+            }
+        }
+
+        // recomputed each time the property is read, so a removed property
+        // is no longer specified after a reload
+        if (parse != null) parse.specified = value != null;
+
+        return value;
+    }
+
+    /**
+     * @return true if the option's property was specified, false otherwise.
+     */
+    public boolean isSpecified() {
+        return snapshot.specified;
+    }
+
+    /**
+     * @return true if the option's value was forced or its property was
+     *         specified, loading the option if it has not been already
+     */
+    final boolean isOverridden() {
+        // whether the property was specified is only known once it is loaded
+        loadGlobal();
+        return forced != null || snapshot.specified;
+    }
+
+    /**
+     * @return the value of the option, loading if it has not been already, or
+     *         the value given by the current thread's {@link OptionScope}
+     */
+    @SuppressWarnings("unchecked")
+    public final T load() {
+        if (OptionMetrics.ENABLED) countLoad();
+
+        if (scopes != 0) {
+            Object scoped = OptionScope.valueOf(this);
+            if (scoped != OptionScope.UNSET) return (T) scoped;
+        }
+
+        return loadGlobal();
+    }
+
+    /**
+     * @return the value of the option, ignoring any scoped override
+     */
+    final T loadGlobal() {
+        Snapshot<T> snapshot = this.snapshot;
+        if (snapshot.loaded) return snapshot.value;
+        
+        return loadSnapshot(snapshot);
+    }
+
+    private T loadSnapshot(Snapshot<T> current) {
+        while (true) {
+            Parse<T> read = read(current);
+            Snapshot<T> loaded = loadedSnapshot(read.value, current.version + 1, read.specified, read.error);
+
+            if (SNAPSHOT.compareAndSet(this, current, loaded)) return loaded.value;
+
+            // another thread published first; use its value if it loaded one
+            current = snapshot;
+            if (current.loaded) return current.value;
+        }
+    }
+    
+    /**
+     * Force a load of the option's property and return the loaded value.
+     *
+     * Unlike {@link #load()}, this always re-reads the property, publishing the
+     * newly-loaded value under a new {@link #version()}.
+     *
+     * @return the loaded value
+     */
+    public final T reload() {
+        return reload(OptionChange.Source.RELOAD);
+    }
+
+    private T reload(OptionChange.Source source) {
+        return reload(source, null);
+    }
+
+    /**
+     * Publish a newly-loaded value. If a forced property is given along with
+     * its already-parsed value, that value is published rather than parsing
+     * the property again, unless another force has replaced it meanwhile.
+     */
+    private T reload(OptionChange.Source source, Parse<T> forcing) {
+        Snapshot<T> current;
+        Snapshot<T> loaded;
+
+        while (true) {
+            current = snapshot;
+
+            if (forcing != null && forced == forcing.property) {
+                loaded = loadedSnapshot(forcing.value, current.version + 1, current.specified, forcing.error);
+            } else {
+                Parse<T> read = read(current);
+                loaded = loadedSnapshot(read.value, current.version + 1, read.specified, read.error);
+            }
+
+            if (SNAPSHOT.compareAndSet(this, current, loaded)) break;
+        }
+
+        updated();
+        invalidateConstant();
+        changed(current, loaded.value, source);
+
+        return loaded.value;
+    }
+
+    /**
+     * Read and parse this option's own property on the current thread,
+     * collecting whether it was specified and any error along with its value,
+     * so that all three are published together.
+     *
+     * @param current the snapshot being replaced
+     * @return the parsed value, whether the property was specified, and any error
+     */
+    private Parse<T> read(Snapshot<T> current) {
+        Parse<T> read = new Parse<T>(this, current.specified);
+        PARSING.incrementAndGet(this);
+        try {
+            read.value = read.run();
+        } finally {
+            PARSING.decrementAndGet(this);
+        }
+        return read;
+    }
+
+    private T parseValue() {
+        if (!OptionMetrics.ENABLED && !OptionEvents.AVAILABLE) return reloadValue();
+
+        Object event = OptionEvents.AVAILABLE ? OptionEvents.beginLoad() : null;
+        long start = OptionMetrics.ENABLED ? System.nanoTime() : 0;
+        T value = reloadValue();
+        if (OptionMetrics.ENABLED) counters().parsed(System.nanoTime() - start);
+        if (event != null) OptionEvents.endLoad(event, this, value);
+
+        return value;
+    }
+
+    /**
+     * Parse the given property as this option's value on the current thread
+     * only, as if it were set in the JVM, without publishing the value or
+     * recording any error for {@link #error()}.
+     *
+     * @param property the property to parse
+     * @return the parsed value and any error found
+     */
+    final Parse<T> parse(String property) {
+        Parse<T> parse = new Parse<T>(this, property);
+        PARSING.incrementAndGet(this);
+        try {
+            parse.value = parse.run();
+        } finally {
+            PARSING.decrementAndGet(this);
+        }
+        return parse;
+    }
+
+    /**
+     * Count a read of this option's value, for options' primitive load methods.
+     * Only called when {@link OptionMetrics#ENABLED}.
+     */
+    final void countLoad() {
+        counters().loads.increment();
+    }
+
+    /**
+     * The counters are allocated on first use rather than when the option is
+     * created, so that options created while building a native image do not
+     * initialize {@link OptionMetrics}, which reads its setting at run time.
+     */
+    private OptionMetrics.Counters counters() {
+        OptionMetrics.Counters counters = this.counters;
+        if (counters == null) {
+            COUNTERS.compareAndSet(this, null, new OptionMetrics.Counters());
+            counters = this.counters;
+        }
+        return counters;
+    }
+
+    /**
+     * Return a snapshot of this option's use so far.
+     *
+     * @return the option's metrics, or null if metrics are not enabled
+     * @see OptionMetrics
+     */
+    public OptionMetrics metrics() {
+        return OptionMetrics.ENABLED ? counters().snapshot(this) : null;
+    }
+
+    /**
+     * Reject the given property value, recording an {@link OptionError} for
+     * {@link #error()}. Subclasses call this from {@link #reloadValue()}
+     * rather than throwing, and return its result.
+     *
+     * @param value the rejected property value
+     * @param reason why the value was rejected
+     * @return the default value, to be used instead
+     */
+    protected final T invalid(String value, String reason) {
+        Parse<?> parse = parsing != 0 ? Parse.of(this) : null;
+        if (parse != null) parse.error = new OptionError(this, value, reason);
+        if (OptionEvents.AVAILABLE) OptionEvents.rejected(this, value, reason);
+        return defval;
+    }
+
+    /**
+     * @return the error recorded when the current value was loaded, if its
+     *         property was rejected and the default used instead, or null
+     */
+    public OptionError error() {
+        return snapshot.error;
+    }
+
+    /**
+     * @return true if the option's value has been loaded and cached, false otherwise.
+     */
+    protected final boolean isLoaded() {
+        return snapshot.loaded;
+    }
+
+    /**
+     * The version of the option's value, incremented each time the value is
+     * loaded, reloaded, forced, or unforced.
+     *
+     * @return the current version of this option's value
+     */
+    public final long version() {
+        return snapshot.version;
+    }
+
+    /**
+     * Force the property value to the given value for all future loads and reloads.
+     *
+     * The value is parsed before it is forced, so if parsing throws, the
+     * option is left as it was.
+     *
+     * @param value a value to force for the Option's property, as if set in JVM
+     */
+    public void force(String value) {
+        force(value, value == null ? null : parse(value));
+    }
+
+    /**
+     * Parse a value ahead of forcing it with {@link #force(String, Parse)}, so
+     * that a value that cannot be forced is found before anything changes.
+     *
+     * @param value the value to be forced
+     * @return the parsed value
+     * @throws UnsupportedOperationException if the option cannot be forced
+     */
+    Parse<T> prepareForce(String value) {
+        return parse(value);
+    }
+
+    /**
+     * Force a value already parsed by {@link #prepareForce(String)}.
+     */
+    final void force(String value, Parse<T> parse) {
+        // listeners are told the old value, so make sure there is one
+        if (hasListeners()) loadGlobal();
+        if (OptionMetrics.ENABLED) counters().forces.increment();
+        if (OptionEvents.AVAILABLE) OptionEvents.forced(this, value);
+
+        forced = value;
+        reload(OptionChange.Source.FORCE, parse);
+    }
+
+    /**
+     * Undoes any previous force, and goes back to an unloaded state.
+     *
+     * If anything is listening for changes to this option, the new value is
+     * loaded immediately so it can be reported.
+     */
+    public void unforce() {
+        if (OptionMetrics.ENABLED) counters().unforces.increment();
+        if (OptionEvents.AVAILABLE) OptionEvents.forced(this, null);
+        forced = null;
+
+        Snapshot<T> current;
+        while (true) {
+            current = snapshot;
+            Snapshot<T> unloaded = current.unloaded();
+
+            if (SNAPSHOT.compareAndSet(this, current, unloaded)) break;
+        }
+
+        updated();
+        invalidateConstant();
+        if (current.loaded && hasListeners()) changed(current, load(), OptionChange.Source.UNFORCE);
+    }
+
+    /**
+     * Add a listener to be notified on the changing thread each time this
+     * option's value changes through {@link #force(String)}, {@link #unforce()}
+     * or {@link #reload()}.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(OptionListener<T> listener) {
+        addListener(listener, DirectExecutor);
+    }
+
+    /**
+     * Add a listener to be notified through the given executor each time this
+     * option's value changes through {@link #force(String)}, {@link #unforce()}
+     * or {@link #reload()}. The initial load of the option is not a change.
+     *
+     * @param listener the listener to add
+     * @param executor the executor on which the listener is called
+     */
+    public synchronized void addListener(OptionListener<T> listener, Executor executor) {
+        if (listeners == null) listeners = new CopyOnWriteArrayList<Listener<T>>();
+
+        listeners.add(new Listener<T>(listener, executor));
+    }
+
+    /**
+     * Remove a listener previously added to this option.
+     *
+     * @param listener the listener to remove
+     */
+    public synchronized void removeListener(OptionListener<T> listener) {
+        if (listeners == null) return;
+
+        for (Listener<T> entry : listeners) {
+            if (entry.listener == listener) listeners.remove(entry);
+        }
+    }
+
+    private boolean hasListeners() {
+        List<Listener<T>> listeners = this.listeners;
+        OptionRegistry registry = this.registry;
+
+        return (listeners != null && !listeners.isEmpty()) || (registry != null && registry.hasListeners());
+    }
+
+    private void changed(Snapshot<T> previous, T value, OptionChange.Source source) {
+        // an initial load is not a change
+        if (!previous.loaded || !hasListeners()) return;
+
+        final OptionChange<T> change = new OptionChange<T>(this, previous.value, value, source);
+        if (change.isEmpty()) return;
+
+        List<Listener<T>> listeners = this.listeners;
+        if (listeners != null) {
+            final List<Runnable> deferred = DEFERRED.get();
+            for (final Listener<T> entry : listeners) {
+                final Runnable notification = new Runnable() {
+                    public void run() {
+                        entry.listener.optionChanged(change);
+                    }
+                };
+
+                if (deferred == null) {
+                    entry.executor.execute(notification);
+                } else {
+                    deferred.add(new Runnable() {
+                        public void run() {
+                            entry.executor.execute(notification);
+                        }
+                    });
+                }
+            }
+        }
+
+        OptionRegistry registry = this.registry;
+        if (registry != null) registry.optionChanged(change);
+    }
+
+    /**
+     * Run the given changes, collecting the notifications of options'
+     * listeners that they cause on this thread rather than sending them, so
+     * that the caller can send them once it has released any locks.
+     *
+     * @param changes code that changes options
+     * @param notifications the list to which the notifications are added
+     */
+    static void deferNotifications(Runnable changes, List<Runnable> notifications) {
+        List<Runnable> outer = DEFERRED.get();
+        DEFERRED.set(notifications);
+        try {
+            changes.run();
+        } finally {
+            if (outer == null) {
+                DEFERRED.remove();
+            } else {
+                DEFERRED.set(outer);
+            }
+        }
+    }
+
+    private static final ThreadLocal<List<Runnable>> DEFERRED = new ThreadLocal<List<Runnable>>();
+
+    private static final class Listener<T> {
+        Listener(OptionListener<T> listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        final OptionListener<T> listener;
+        final Executor executor;
+    }
+
+    private static final Executor DirectExecutor = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * Return a MethodHandle of type ()T that produces this option's value.
+     *
+     * The handle is backed by a MutableCallSite whose target is the loaded
+     * value as a constant, guarded by a SwitchPoint. Stored in a static final
+     * field or bound into an invokedynamic call site, it allows the JIT to fold
+     * the option's value into compiled code. A {@link #force(String)} or
+     * {@link #unforce()} invalidates the SwitchPoint, deoptimizing dependent
+     * code, and the next invocation rebinds the handle to the current value.
+     * The handle always produces the global value, ignoring any
+     * {@link OptionScope} overrides.
+     *
+     * @return a constant-foldable handle producing this option's value
+     */
+    public final MethodHandle asConstantHandle() {
+        MethodHandle handle = constantHandle;
+        if (handle != null) return handle;
+
+        return createConstantHandle();
+    }
+
+    private synchronized MethodHandle createConstantHandle() {
+        if (constantHandle != null) return constantHandle;
+
+        constantSite = new MutableCallSite(MethodType.methodType(type));
+        relinkConstant();
+
+        return constantHandle = constantSite.dynamicInvoker();
+    }
+
+    private synchronized Object relinkConstant() {
+        T value = loadGlobal();
+
+        SwitchPoint switchPoint = new SwitchPoint();
+        constantSite.setTarget(
+                switchPoint.guardWithTest(
+                        MethodHandles.constant(type, value),
+                        RELINK_CONSTANT.bindTo(this).asType(constantSite.type())));
+        MutableCallSite.syncAll(new MutableCallSite[] {constantSite});
+        constantSwitchPoint = switchPoint;
+
+        return value;
+    }
+
+    private void invalidateConstant() {
+        // the new value is published before this check, so a handle created
+        // concurrently will load it
+        if (constantSite == null) return;
+
+        synchronized (this) {
+            SwitchPoint switchPoint = constantSwitchPoint;
+            if (switchPoint == null) return;
+
+            constantSwitchPoint = null;
+            SwitchPoint.invalidateAll(new SwitchPoint[] {switchPoint});
+        }
+    }
+
+    private static final MethodHandle RELINK_CONSTANT;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Option, Snapshot> SNAPSHOT =
+            AtomicReferenceFieldUpdater.newUpdater(Option.class, Snapshot.class, "snapshot");
+
+    private static final AtomicIntegerFieldUpdater<Option> SCOPES =
+            AtomicIntegerFieldUpdater.newUpdater(Option.class, "scopes");
+
+    private static final AtomicIntegerFieldUpdater<Option> PARSING =
+            AtomicIntegerFieldUpdater.newUpdater(Option.class, "parsing");
+
+    private static final AtomicReferenceFieldUpdater<Option, OptionMetrics.Counters> COUNTERS =
+            AtomicReferenceFieldUpdater.newUpdater(Option.class, OptionMetrics.Counters.class, "counters");
+
+    private static final DerivedOption<?>[] NO_DEPENDENTS = new DerivedOption<?>[0];
+
+    static {
+        try {
+            RELINK_CONSTANT = MethodHandles.lookup().findVirtual(Option.class, "relinkConstant", MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException roe) {
+            throw new ExceptionInInitializerError(roe);
+        }
+    }
+    
+    /**
+     * Perform the appropriate load and conversion for the option's property.
+     *
+     * @return the updated value after reload
+     */
+    protected abstract T reloadValue();
+
+    /**
+     * Create the snapshot published for a newly-loaded value. Subclasses may
+     * override this to also cache the value in another form, such as an
+     * unboxed primitive.
+     *
+     * @param value the newly-loaded value
+     * @param version the version of the new snapshot
+     * @param specified whether the option's property was specified
+     * @param error the error recorded while loading the value, or null
+     * @return a loaded snapshot holding the value
+     */
+    Snapshot<T> loadedSnapshot(T value, long version, boolean specified, OptionError error) {
+        return new Snapshot<T>(value, version, true, specified, error);
+    }
+
+    /**
+     * Attach this option to the given registry, which will supply its property
+     * once loaded.
+     *
+     * @param registry the registry taking ownership of this option
+     * @param index the option's index within the registry
+     */
+    synchronized void register(OptionRegistry registry, int index) {
+        if (this.registry != null) {
+            throw new IllegalArgumentException("option " + longName + " is already registered");
+        }
+
+        this.registryIndex = index;
+        this.registry = registry;
+    }
+
+    /**
+     * @return the option's index within its registry
+     */
+    final int registryIndex() {
+        return registryIndex;
+    }
+
+    /**
+     * Render a value of this option as it would be written in its property,
+     * for formatting. By default this is the value's toString().
+     *
+     * @param value a non-null value of this option
+     * @return the value as a property string
+     */
+    protected String toProperty(T value) {
+        return value.toString();
+    }
+
+    /**
+     * @return the option's supported values rendered as a list, computed once
+     */
+    final String optionsString() {
+        String optionsString = this.optionsString;
+        if (optionsString == null) this.optionsString = optionsString = Arrays.toString(options);
+
+        return optionsString;
+    }
+
+    /**
+     * @return true if any thread has a scope overriding this option
+     */
+    final boolean isScoped() {
+        return scopes != 0;
+    }
+
+    final void enterScope() {
+        SCOPES.incrementAndGet(this);
+    }
+
+    final void exitScope() {
+        SCOPES.decrementAndGet(this);
+    }
+
+    /**
+     * Return this option to its unloaded state, discarding any loaded value
+     * without notifying listeners, so that the next load reads the property
+     * afresh. A forced value is kept.
+     */
+    final void unload() {
+        Snapshot<T> current;
+        while (true) {
+            current = snapshot;
+            if (!current.loaded) return;
+
+            if (SNAPSHOT.compareAndSet(this, current, new Snapshot<T>(null, current.version + 1, false, false, null))) break;
+        }
+
+        updated();
+        invalidateConstant();
+    }
+
+    /**
+     * Tell this option's registry, if any, that its published value has changed.
+     */
+    private void updated() {
+        OptionRegistry registry = this.registry;
+        if (registry != null) registry.optionUpdated(this);
+
+        for (DerivedOption<?> dependent : dependents) {
+            dependent.invalidate();
+        }
+    }
+
+    /**
+     * Record a derived option to be invalidated whenever this option's value changes.
+     */
+    final synchronized void addDependent(DerivedOption<?> dependent) {
+        DerivedOption<?>[] dependents = Arrays.copyOf(this.dependents, this.dependents.length + 1);
+        dependents[dependents.length - 1] = dependent;
+        this.dependents = dependents;
+    }
+
+    /**
+     * Discard the loaded value of a derived option after one of its inputs
+     * changed, so that it is computed again on the next load. If anything is
+     * listening for changes, the new value is computed immediately so it can
+     * be reported.
+     *
+     * The version is bumped even if no value is loaded, so that a computation
+     * already in progress from the old inputs fails to publish its value and
+     * computes it again.
+     */
+    final void invalidate() {
+        Snapshot<T> current;
+        while (true) {
+            current = snapshot;
+
+            if (SNAPSHOT.compareAndSet(this, current, current.unloaded())) break;
+        }
+
+        updated();
+        if (!current.loaded) return;
+
+        invalidateConstant();
+        if (hasListeners()) changed(current, load(), OptionChange.Source.RELOAD);
+    }
+
+    /**
+     * @return the currently-published snapshot of this option's value
+     */
+    final Snapshot<T> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * An immutable view of an option's value, replaced as a whole each time the
+     * option is loaded, reloaded, forced, or unforced.
+     *
+     * @param <T> the type of value associated with the option
+     */
+    static class Snapshot<T> {
+        Snapshot(T value, long version, boolean loaded, boolean specified, OptionError error) {
+            this.value = value;
+            this.version = version;
+            this.loaded = loaded;
+            this.specified = specified;
+            this.error = error;
+        }
+
+        /**
+         * @return an unloaded snapshot under the next version, keeping whether
+         *         the property was specified and any error until it is reloaded
+         */
+        final Snapshot<T> unloaded() {
+            return new Snapshot<T>(null, version + 1, false, specified, error);
+        }
+
+        final T value;
+        final long version;
+        final boolean loaded;
+        final boolean specified;
+        final OptionError error;
+    }
+    
+    /**
+     * A property being parsed for one option on one thread by
+     * {@link #parse(String)}, which {@link #loadProperty()} returns in place of
+     * the option's own property, and the result of parsing it. A parse that is
+     * reading the option's own property also records whether it was specified.
+     *
+     * @param <T> the type of value associated with the option
+     */
+    static final class Parse<T> {
+        Parse(Option<T> option, String property) {
+            this.option = option;
+            this.property = property;
+            this.reading = false;
+        }
+
+        /**
+         * A parse of the option's own property, as read by {@link #loadProperty()}.
+         */
+        Parse(Option<T> option, boolean specified) {
+            this.option = option;
+            this.property = null;
+            this.reading = true;
+            this.specified = specified;
+        }
+
+        T run() {
+            previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                return option.parseValue();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        }
+
+        /**
+         * @return the current thread's parse of the given option's property, or null
+         */
+        static Parse<?> of(Option<?> option) {
+            for (Parse<?> parse = CURRENT.get(); parse != null; parse = parse.previous) {
+                if (parse.option == option) return parse;
+            }
+            return null;
+        }
+
+        private static final ThreadLocal<Parse<?>> CURRENT = new ThreadLocal<Parse<?>>();
+
+        final Option<T> option;
+        final String property;
+        final boolean reading;
+        T value;
+        boolean specified;
+        OptionError error;
+        private Parse<?> previous;
+    }
+    
+    /**
+     * If the option has a short name, return it. Otherwise null.
+     *
+     * @return the short name, or else null
+     */
+    public String shortName() {
+        return shortName;
+    }
+    
+    /**
+     * @return the full property name for the option.
+     */
+    public String propertyName() {
+        return longName;
+    }
+    
+    /**
+     * If the property has a prefix, return it. Otherwise null.
+     *
+     * @return the property prefix, or else null
+     */
+    public String prefix() {
+        return prefix;
+    }
+    
+    /**
+     * @return the category to which this option belongs
+     */
+    public Enum category() {
+        return category;
     }
     
     /**
@@ -744,8 +2039,17 @@ public abstract class Option<T> {
     private final T[] options;
     protected final T defval;
     private final String description;
-    private String forced;
-    private boolean specified;
-    private volatile T value;
-    private volatile boolean loaded;
+    private String optionsString;
+    private volatile OptionRegistry registry;
+    private int registryIndex;
+    private volatile String forced;
+    private volatile DerivedOption<?>[] dependents = NO_DEPENDENTS;
+    private volatile OptionMetrics.Counters counters;
+    private volatile int scopes;
+    private volatile int parsing;
+    private volatile Snapshot<T> snapshot = new Snapshot<T>(null, 0, false, false, null);
+    private volatile CopyOnWriteArrayList<Listener<T>> listeners;
+    private volatile MethodHandle constantHandle;
+    private volatile MutableCallSite constantSite;
+    private SwitchPoint constantSwitchPoint;
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of parsing command-line arguments with an {@link ArgumentParser}:
+ * the properties given for options, the system properties given for anything
+ * else, the arguments that were not options, and a description of each
+ * argument that could not be used.
+ */
+public final class OptionArguments {
+    OptionArguments(Map<String, String> properties, Map<String, String> systemProperties, List<String> remaining, List<String> errors) {
+        this.properties = Collections.unmodifiableMap(properties);
+        this.systemProperties = Collections.unmodifiableMap(systemProperties);
+        this.remaining = Collections.unmodifiableList(remaining);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return the properties given for options, by property name, in the order
+     *         given; a later argument for the same option replaces an earlier one
+     */
+    public Map<String, String> properties() {
+        return properties;
+    }
+
+    /**
+     * @return the properties given by -Dname=value arguments that name no
+     *         option, by property name, in the order given; -Dname alone gives
+     *         an empty value
+     */
+    public Map<String, String> systemProperties() {
+        return systemProperties;
+    }
+
+    /**
+     * Set the {@link #systemProperties()} as system properties, as the java
+     * launcher would have if they had been given to it.
+     */
+    public void setSystemProperties() {
+        for (Map.Entry<String, String> property : systemProperties.entrySet()) {
+            System.setProperty(property.getKey(), property.getValue());
+        }
+    }
+
+    /**
+     * @return the arguments that are not options, such as file names and
+     *         everything after "--", in the order given
+     */
+    public List<String> remaining() {
+        return remaining;
+    }
+
+    /**
+     * @return a message for each argument naming an unknown option or giving
+     *         an option an unusable value, with suggestions where there are any
+     */
+    public List<String> errors() {
+        return errors;
+    }
+
+    /**
+     * Return a source supplying the parsed properties, to be placed ahead of the
+     * other sources of an {@link OptionRegistry}.
+     *
+     * @return a source named "arguments"
+     */
+    public OptionSource source() {
+        return OptionSource.fromMap("arguments", properties);
+    }
+
+    private final Map<String, String> properties;
+    private final Map<String, String> systemProperties;
+    private final List<String> remaining;
+    private final List<String> errors;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.List;
+
+/**
+ * A listener notified of batches of changes to the options in a registry.
+ *
+ * Changes made in quick succession are coalesced: each option appears at most
+ * once per batch, with its value from before the first change and after the
+ * last, and options whose changes cancel out are omitted.
+ *
+ * @see OptionRegistry#addListener(OptionBatchListener, java.util.concurrent.Executor)
+ */
+public interface OptionBatchListener {
+    /**
+     * Called with a batch of changes, in the order the options first changed.
+     *
+     * @param changes the coalesced changes
+     */
+    void optionsChanged(List<OptionChange<?>> changes);
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A change in the value of an option, as delivered to an {@link OptionListener}
+ * or {@link OptionBatchListener}.
+ *
+ * @param <T> the type of value associated with the option
+ */
+public final class OptionChange<T> {
+    /**
+     * The operation that caused an option's value to change.
+     */
+    public enum Source {
+        /** The option was forced to a new value with {@link Option#force(String)}. */
+        FORCE,
+        /** A forced value was removed with {@link Option#unforce()}. */
+        UNFORCE,
+        /** The option's property was re-read, by {@link Option#reload()} or a registry load. */
+        RELOAD
+    }
+
+    OptionChange(Option<T> option, T oldValue, T newValue, Source source) {
+        this.option = option;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.source = source;
+    }
+
+    /**
+     * @return the option whose value changed
+     */
+    public Option<T> option() {
+        return option;
+    }
+
+    /**
+     * @return the value of the option before the change
+     */
+    public T oldValue() {
+        return oldValue;
+    }
+
+    /**
+     * @return the value of the option after the change
+     */
+    public T newValue() {
+        return newValue;
+    }
+
+    /**
+     * @return the operation that caused the change
+     */
+    public Source source() {
+        return source;
+    }
+
+    /**
+     * Combine this change with a later change to the same option, keeping this
+     * change's old value and the later change's new value and source.
+     *
+     * @param later a later change to the same option
+     * @return the combined change
+     */
+    OptionChange<T> coalesce(OptionChange<T> later) {
+        return new OptionChange<T>(option, oldValue, later.newValue, later.source);
+    }
+
+    /**
+     * @return true if the old and new values are equal, as when coalesced changes cancel out
+     */
+    boolean isEmpty() {
+        return oldValue == null ? newValue == null : oldValue.equals(newValue);
+    }
+
+    @Override
+    public String toString() {
+        return option + ": " + oldValue + " -> " + newValue + " (" + source + ")";
+    }
+
+    private final Option<T> option;
+    private final T oldValue;
+    private final T newValue;
+    private final Source source;
+}
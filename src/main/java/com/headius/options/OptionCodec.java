@@ -0,0 +1,661 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine-readable export of options' schema and current values, as JSON or a
+ * compact binary encoding, for shipping option snapshots between processes.
+ *
+ * Each option is written with its name, category, type, description, default,
+ * accepted values, current value, origin and whether it was overridden by a
+ * specified property or a forced value. The global values are written,
+ * ignoring any {@link OptionScope} overrides on the exporting thread. Values
+ * are written as they would be
+ * given in a property; booleans and numbers whose property is their plain
+ * string form are written as JSON booleans and numbers, or as type-tagged
+ * binary values.
+ *
+ * The readers rebuild the overrides, the values of the overridden options,
+ * ready to be passed to {@link OptionRegistry#load(Map)} or forced in an
+ * {@link OptionTransaction}.
+ */
+public final class OptionCodec {
+    private OptionCodec() {
+    }
+
+    /**
+     * Write the given options as a JSON document, streaming to the output.
+     *
+     * @param out the output to which the document is written
+     * @param options the options to write
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeJson(Appendable out, Collection<? extends Option> options) throws IOException {
+        out.append("{\"options\":[");
+        boolean first = true;
+        for (Option option : options) {
+            Object value = option.loadGlobal();
+            boolean overridden = option.isOverridden();
+
+            if (!first) out.append(',');
+            first = false;
+
+            out.append("\n{\"name\":");
+            writeJsonString(out, option.propertyName());
+            out.append(",\"category\":");
+            writeJsonString(out, option.category() == null ? null : option.category().toString());
+            out.append(",\"type\":");
+            writeJsonString(out, option.type() == null ? null : option.type().getName());
+            out.append(",\"description\":");
+            writeJsonString(out, option.description());
+            out.append(",\"default\":");
+            writeJsonValue(out, option, option.defaultValue());
+
+            Object[] allowed = option.options();
+            if (allowed != null) {
+                out.append(",\"options\":[");
+                for (int i = 0; i < allowed.length; i++) {
+                    if (i > 0) out.append(',');
+                    writeJsonValue(out, option, allowed[i]);
+                }
+                out.append(']');
+            }
+
+            out.append(",\"value\":");
+            writeJsonValue(out, option, value);
+            out.append(",\"origin\":");
+            writeJsonString(out, option.origin());
+            out.append(",\"overridden\":").append(overridden ? "true" : "false");
+            out.append('}');
+        }
+        out.append("\n]}\n");
+    }
+
+    /**
+     * Read the overrides from a JSON document written by
+     * {@link #writeJson(Appendable, Collection)}.
+     *
+     * @param in the document
+     * @return the property values of the overridden options, by name, in the order written
+     * @throws IOException if the document cannot be read or is not valid
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, String> readJson(Reader in) throws IOException {
+        Object document = new JsonParser(in).parseDocument();
+        if (!(document instanceof Map) || !(((Map) document).get("options") instanceof List)) {
+            throw new IOException("not an options document");
+        }
+
+        Map<String, String> overrides = new LinkedHashMap<String, String>();
+        for (Object element : (List<Object>) ((Map) document).get("options")) {
+            if (!(element instanceof Map)) throw new IOException("not an options document");
+
+            Map<String, Object> option = (Map<String, Object>) element;
+            Object name = option.get("name");
+            if (!(name instanceof String)) throw new IOException("option without a name");
+
+            Object value = option.get("value");
+            if (Boolean.TRUE.equals(option.get("overridden")) && value != null) overrides.put((String) name, value.toString());
+        }
+        return overrides;
+    }
+
+    /**
+     * Write the given options in the binary encoding.
+     *
+     * Every string is written once, to a table at the start, and referred to
+     * by index; numbers are written in as few bytes as their magnitude needs.
+     *
+     * @param out the output to which the options are written
+     * @param options the options to write
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeBinary(OutputStream out, Collection<? extends Option> options) throws IOException {
+        // intern the strings, then write the table followed by the options
+        StringTable strings = new StringTable();
+        List<Object[]> rows = new ArrayList<Object[]>(options.size());
+        for (Option option : options) {
+            Object value = option.loadGlobal();
+            Object[] allowed = option.options();
+            rows.add(new Object[] {option, value, option.isOverridden(), allowed});
+
+            strings.add(option.propertyName());
+            strings.add(option.category() == null ? null : option.category().toString());
+            strings.add(option.type() == null ? null : option.type().getName());
+            strings.add(option.description());
+            strings.add(option.origin());
+            strings.addValue(option, option.defaultValue());
+            strings.addValue(option, value);
+            if (allowed != null) {
+                for (Object element : allowed) strings.addValue(option, element);
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+
+        writeVarint(data, strings.list.size());
+        for (String string : strings.list) {
+            writeString(data, string);
+        }
+
+        writeVarint(data, rows.size());
+        for (Object[] row : rows) {
+            Option option = (Option) row[0];
+            Object[] allowed = (Object[]) row[3];
+
+            writeVarint(data, strings.indexOf(option.propertyName()));
+            writeVarint(data, strings.indexOf(option.category() == null ? null : option.category().toString()));
+            writeVarint(data, strings.indexOf(option.type() == null ? null : option.type().getName()));
+            writeVarint(data, strings.indexOf(option.description()));
+            writeBinaryValue(data, strings, option, option.defaultValue());
+            if (allowed == null) {
+                writeVarint(data, 0);
+            } else {
+                writeVarint(data, allowed.length + 1);
+                for (Object element : allowed) writeBinaryValue(data, strings, option, element);
+            }
+            writeBinaryValue(data, strings, option, row[1]);
+            writeVarint(data, strings.indexOf(option.origin()));
+            data.writeBoolean((Boolean) row[2]);
+        }
+
+        data.flush();
+    }
+
+    /**
+     * Read the overrides from options written by
+     * {@link #writeBinary(OutputStream, Collection)}.
+     *
+     * @param in the encoded options
+     * @return the property values of the overridden options, by name, in the order written
+     * @throws IOException if the input cannot be read or is not valid
+     * @throws IllegalArgumentException if a count in the input is larger than
+     *         the rest of the input could hold
+     */
+    public static Map<String, String> readBinary(InputStream in) throws IOException {
+        // buffered whole so that counts can be checked against what remains
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(readFully(in)));
+        if (data.readInt() != MAGIC) throw new IOException("not an options encoding");
+        int version = data.readUnsignedByte();
+        if (version != VERSION) throw new IOException("unsupported options encoding version " + version);
+
+        String[] strings = new String[readCount(data, 1)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(data);
+        }
+
+        int count = readCount(data, MINIMUM_OPTION_SIZE);
+        Map<String, String> overrides = new LinkedHashMap<String, String>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            String name = string(strings, readVarint(data));
+            readVarint(data); // category
+            readVarint(data); // type
+            readVarint(data); // description
+            readBinaryValue(data, strings); // default
+            int allowed = readVarint(data) - 1;
+            for (int j = 0; j < allowed; j++) {
+                readBinaryValue(data, strings);
+            }
+            String value = readBinaryValue(data, strings);
+            readVarint(data); // origin
+            boolean overridden = data.readBoolean();
+
+            if (name == null) throw new IOException("option without a name");
+            if (overridden && value != null) overrides.put(name, value);
+        }
+        return overrides;
+    }
+
+    /**
+     * @return the value's boolean or number if its property is its plain
+     *         string form, so it can be written as one, or else null
+     */
+    private static Object plain(Object value, String property) {
+        if (value instanceof Boolean || value instanceof Integer || value instanceof Long
+                || (value instanceof Double && !((Double) value).isInfinite() && !((Double) value).isNaN())) {
+            if (property.equals(value.toString())) return value;
+        }
+        return null;
+    }
+
+    private static void writeJsonValue(Appendable out, Option option, Object value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+
+        String property = Option.property(option, value);
+        if (plain(value, property) != null) {
+            out.append(property);
+        } else {
+            writeJsonString(out, property);
+        }
+    }
+
+    private static void writeJsonString(Appendable out, String string) throws IOException {
+        if (string == null) {
+            out.append("null");
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0, length = string.length(); i < length; i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+
+    private static void writeBinaryValue(DataOutputStream data, StringTable strings, Option option, Object value) throws IOException {
+        if (value == null) {
+            data.writeByte(TAG_NULL);
+            return;
+        }
+
+        String property = Option.property(option, value);
+        Object plain = plain(value, property);
+        if (plain instanceof Boolean) {
+            data.writeByte((Boolean) plain ? TAG_TRUE : TAG_FALSE);
+        } else if (plain instanceof Integer || plain instanceof Long) {
+            long number = ((Number) plain).longValue();
+            data.writeByte(plain instanceof Integer ? TAG_INT : TAG_LONG);
+            writeVarlong(data, (number << 1) ^ (number >> 63));
+        } else if (plain instanceof Double) {
+            data.writeByte(TAG_DOUBLE);
+            data.writeDouble((Double) plain);
+        } else {
+            data.writeByte(TAG_STRING);
+            writeVarint(data, strings.indexOf(property));
+        }
+    }
+
+    private static String readBinaryValue(DataInputStream data, String[] strings) throws IOException {
+        int tag = data.readUnsignedByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return "false";
+            case TAG_TRUE:
+                return "true";
+            case TAG_INT:
+            case TAG_LONG:
+                long zigzag = readVarlong(data);
+                return Long.toString((zigzag >>> 1) ^ -(zigzag & 1));
+            case TAG_DOUBLE:
+                return Double.toString(data.readDouble());
+            case TAG_STRING:
+                return string(strings, readVarint(data));
+            default:
+                throw new IOException("unknown value tag " + tag);
+        }
+    }
+
+    private static String string(String[] strings, int index) throws IOException {
+        if (index == 0) return null;
+        if (index > strings.length) throw new IOException("string index " + index + " out of range");
+
+        return strings[index - 1];
+    }
+
+    /**
+     * Write a string as its length in UTF-8 bytes followed by the bytes, which
+     * unlike {@link DataOutputStream#writeUTF(String)} has no 64KB limit.
+     */
+    private static void writeString(DataOutputStream data, String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF8);
+        writeVarint(data, bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[readCount(data, 1)];
+        data.readFully(bytes);
+
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeVarint(DataOutputStream data, int value) throws IOException {
+        writeVarlong(data, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarlong(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    private static int readVarint(DataInputStream data) throws IOException {
+        long value = readVarlong(data);
+        if (value > Integer.MAX_VALUE) throw new IOException("count out of range");
+
+        return (int) value;
+    }
+
+    /**
+     * Read a count of items, each taking at least the given number of bytes,
+     * rejecting it before anything is allocated for it if the rest of the
+     * input is too short to hold that many.
+     */
+    private static int readCount(DataInputStream data, int minimumSize) throws IOException {
+        int count = readVarint(data);
+        if (count < 0 || (long) count * minimumSize > data.available()) {
+            throw new IllegalArgumentException("count " + count + " exceeds the remaining input");
+        }
+
+        return count;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static long readVarlong(DataInputStream data) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("malformed number");
+    }
+
+    /**
+     * The distinct strings written, each referred to by its index plus one so
+     * that zero can stand for null.
+     */
+    private static final class StringTable {
+        void add(String string) {
+            if (string != null && !indices.containsKey(string)) {
+                list.add(string);
+                indices.put(string, list.size());
+            }
+        }
+
+        void addValue(Option option, Object value) {
+            if (value == null) return;
+
+            String property = Option.property(option, value);
+            if (plain(value, property) == null) add(property);
+        }
+
+        int indexOf(String string) {
+            return string == null ? 0 : indices.get(string);
+        }
+
+        final List<String> list = new ArrayList<String>();
+        private final Map<String, Integer> indices = new HashMap<String, Integer>();
+    }
+
+    /**
+     * A JSON number, kept as its source text so that it reads back as the
+     * property it was written from.
+     */
+    private static final class JsonNumber {
+        JsonNumber(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+
+        private final String text;
+    }
+
+    /**
+     * A minimal streaming JSON parser, producing maps, lists, strings,
+     * booleans, nulls and {@link JsonNumber}s.
+     */
+    private static final class JsonParser {
+        JsonParser(Reader in) {
+            this.in = in;
+        }
+
+        Object parseDocument() throws IOException {
+            next();
+            Object value = parseValue();
+            skipWhitespace();
+            if (current != -1) throw error("trailing content");
+            return value;
+        }
+
+        private Object parseValue() throws IOException {
+            skipWhitespace();
+            switch (current) {
+                case '{':
+                    return parseObject();
+                case '[':
+                    return parseArray();
+                case '"':
+                    return parseString();
+                case 't':
+                    expect("true");
+                    return Boolean.TRUE;
+                case 'f':
+                    expect("false");
+                    return Boolean.FALSE;
+                case 'n':
+                    expect("null");
+                    return null;
+                default:
+                    if (current == '-' || (current >= '0' && current <= '9')) return parseNumber();
+                    throw error("unexpected " + describe(current));
+            }
+        }
+
+        private Map<String, Object> parseObject() throws IOException {
+            Map<String, Object> object = new LinkedHashMap<String, Object>();
+            next();
+            skipWhitespace();
+            if (current == '}') {
+                next();
+                return object;
+            }
+
+            while (true) {
+                skipWhitespace();
+                if (current != '"') throw error("expected a name");
+                String name = parseString();
+                skipWhitespace();
+                if (current != ':') throw error("expected ':'");
+                next();
+                object.put(name, parseValue());
+                skipWhitespace();
+                if (current == '}') {
+                    next();
+                    return object;
+                }
+                if (current != ',') throw error("expected ',' or '}'");
+                next();
+            }
+        }
+
+        private List<Object> parseArray() throws IOException {
+            List<Object> array = new ArrayList<Object>();
+            next();
+            skipWhitespace();
+            if (current == ']') {
+                next();
+                return array;
+            }
+
+            while (true) {
+                array.add(parseValue());
+                skipWhitespace();
+                if (current == ']') {
+                    next();
+                    return array;
+                }
+                if (current != ',') throw error("expected ',' or ']'");
+                next();
+            }
+        }
+
+        private String parseString() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                next();
+                if (current == -1) throw error("unterminated string");
+                if (current == '"') {
+                    next();
+                    return sb.toString();
+                }
+                if (current != '\\') {
+                    sb.append((char) current);
+                    continue;
+                }
+
+                next();
+                switch (current) {
+                    case '"': case '\\': case '/':
+                        sb.append((char) current);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        int c = 0;
+                        for (int i = 0; i < 4; i++) {
+                            next();
+                            int digit = Character.digit(current, 16);
+                            if (current == -1 || digit < 0) throw error("malformed escape");
+                            c = c << 4 | digit;
+                        }
+                        sb.append((char) c);
+                        break;
+                    default:
+                        throw error("malformed escape");
+                }
+            }
+        }
+
+        private JsonNumber parseNumber() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (current == '-' || current == '+' || current == '.' || current == 'e' || current == 'E' || (current >= '0' && current <= '9')) {
+                sb.append((char) current);
+                next();
+            }
+            return new JsonNumber(sb.toString());
+        }
+
+        private void expect(String literal) throws IOException {
+            for (int i = 0; i < literal.length(); i++) {
+                if (current != literal.charAt(i)) throw error("unexpected " + describe(current));
+                next();
+            }
+        }
+
+        private void skipWhitespace() throws IOException {
+            while (current == ' ' || current == '\n' || current == '\r' || current == '\t') next();
+        }
+
+        private void next() throws IOException {
+            current = in.read();
+            if (current != -1) offset++;
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " in JSON at offset " + offset);
+        }
+
+        private static String describe(int c) {
+            return c == -1 ? "end of input" : "'" + (char) c + "'";
+        }
+
+        private final Reader in;
+        private int current;
+        private long offset;
+    }
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MAGIC = 0x4F505453; // "OPTS"
+    private static final int VERSION = 2;
+    // name, category, type, description, default, accepted count, value, origin and overridden
+    private static final int MINIMUM_OPTION_SIZE = 9;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_STRING = 6;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A rule relating an option to the options it depends on, checked by an
+ * {@link OptionRegistry} whenever any of them changes.
+ *
+ * Subclasses implement {@link #check()}, reading the options' values and
+ * describing any violation. Common rules are provided by
+ * {@link #requires(Option, Option)} and {@link #atLeast(Option, Option)}.
+ *
+ * @see OptionRegistry#constrain(OptionConstraint)
+ */
+public abstract class OptionConstraint {
+    /**
+     * @param subject the option the rule applies to
+     * @param dependencies the options the subject depends on
+     */
+    protected OptionConstraint(Option<?> subject, Option<?>... dependencies) {
+        this.subject = subject;
+        this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies.clone()));
+    }
+
+    /**
+     * @return the option the rule applies to
+     */
+    public final Option<?> subject() {
+        return subject;
+    }
+
+    /**
+     * @return the options the subject depends on
+     */
+    public final List<Option<?>> dependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Check the rule against the options' current values, as read by
+     * {@link #value(Option)}.
+     *
+     * @return a description of the violation, or null if the rule holds
+     */
+    protected abstract String check();
+
+    /**
+     * Read an option's global value, ignoring any {@link OptionScope} on the
+     * checking thread.
+     *
+     * @param option the option to read
+     * @param <T> the type of value associated with the option
+     * @return the option's value
+     */
+    protected static <T> T value(Option<T> option) {
+        return option.loadGlobal();
+    }
+
+    /**
+     * A rule that the given option is only set or forced when the given
+     * condition is true, as when a timeout length only applies if timeouts are
+     * enabled.
+     *
+     * @param option the dependent option
+     * @param condition the option enabling it
+     * @return a new constraint
+     */
+    public static OptionConstraint requires(final Option<?> option, final Option<Boolean> condition) {
+        return new OptionConstraint(option, condition) {
+            protected String check() {
+                if (!option.isOverridden() || Boolean.TRUE.equals(value(condition))) return null;
+
+                return option.propertyName() + " is set but has no effect unless " + condition.propertyName() + " is true";
+            }
+        };
+    }
+
+    /**
+     * A rule that the given option's value is at least the value of another,
+     * as when a maximum must not be below a minimum. The rule holds if either
+     * value is null.
+     *
+     * @param option the larger option
+     * @param minimum the smaller option
+     * @param <T> the type of the options' values
+     * @return a new constraint
+     */
+    public static <T extends Comparable<? super T>> OptionConstraint atLeast(final Option<T> option, final Option<T> minimum) {
+        return new OptionConstraint(option, minimum) {
+            protected String check() {
+                T current = value(option);
+                T min = value(minimum);
+                if (current == null || min == null || current.compareTo(min) >= 0) return null;
+
+                return option.propertyName() + " is " + current + " but must be at least " + minimum.propertyName() + " (" + min + ")";
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + subject.propertyName() + " on " + dependencies.size() + " options)";
+    }
+
+    private final Option<?> subject;
+    private final List<Option<?>> dependencies;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * An invalid property value found while loading an option. Rather than
+ * throwing from {@link Option#load()}, an option that rejects its property
+ * falls back to its default and records the error, to be reported through
+ * {@link Option#error()}.
+ */
+public final class OptionError {
+    OptionError(Option<?> option, String value, String reason) {
+        this.option = option;
+        this.value = value;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the option whose property was rejected
+     */
+    public Option<?> option() {
+        return option;
+    }
+
+    /**
+     * @return the rejected property value
+     */
+    public String value() {
+        return value;
+    }
+
+    /**
+     * @return why the value was rejected
+     */
+    public String reason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "invalid value for " + option.propertyName() + ": \"" + value + "\" (" + reason + ")";
+    }
+
+    private final Option<?> option;
+    private final String value;
+    private final String reason;
+}
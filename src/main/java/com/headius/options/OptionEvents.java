@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * JDK Flight Recorder events for option loads, forces and rejected
+ * properties, so changes to options can be lined up with the rest of a
+ * recording.
+ *
+ * The library targets Java 8, so the events themselves live in the Java 11
+ * part of the multi-release jar and are found reflectively. On JVMs without
+ * Flight Recorder, or before Java 11, {@link #AVAILABLE} is false and none of
+ * the event classes are loaded. When it is available but not recording, each
+ * event costs a check of the event type's enabled state and allocates
+ * nothing.
+ */
+final class OptionEvents {
+    private OptionEvents() {
+    }
+
+    /**
+     * Whether Flight Recorder's event API is present in this JVM.
+     */
+    static final boolean AVAILABLE;
+
+    private static final Recorder RECORDER;
+
+    static {
+        Recorder recorder;
+        try {
+            recorder = (Recorder) Class.forName("com.headius.options.FlightRecorderEvents").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            recorder = null;
+        }
+
+        RECORDER = recorder;
+        AVAILABLE = recorder != null;
+    }
+
+    /**
+     * Begin timing a load, only called when {@link #AVAILABLE}.
+     *
+     * @return the started event, passed back as an Object so that callers
+     *         never name an event class, or null if loads are not recorded
+     */
+    static Object beginLoad() {
+        return RECORDER.beginLoad();
+    }
+
+    static void endLoad(Object started, Option<?> option, Object value) {
+        RECORDER.endLoad(started, option, value);
+    }
+
+    static void forced(Option<?> option, String value) {
+        RECORDER.forced(option, value);
+    }
+
+    static void rejected(Option<?> option, String value, String reason) {
+        RECORDER.rejected(option, value, reason);
+    }
+
+    /**
+     * Emits the events, implemented against Flight Recorder's API.
+     */
+    abstract static class Recorder {
+        abstract Object beginLoad();
+
+        abstract void endLoad(Object started, Option<?> option, Object value);
+
+        abstract void forced(Option<?> option, String value);
+
+        abstract void rejected(Option<?> option, String value, String reason);
+    }
+}
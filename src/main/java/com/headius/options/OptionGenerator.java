@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Generates a Java class holding pre-computed metadata for the options
+ * declared as static fields of one or more classes: their sorted property
+ * names, their defaults as constants, and the help text produced by
+ * {@link Option#formatOptions}.
+ *
+ * A program can then print its help or check property names against the
+ * generated constants without creating, sorting or formatting its options at
+ * startup, and pass the generated OPTIONS constant to
+ * {@link OptionRegistry#prepare(GeneratedOptions)} so that its registry does
+ * not sort or format them either. Defaults of types other than String,
+ * Boolean, Integer, Long, Double, public enums and lists of those are
+ * generated as null. The generator is meant to run as part of the build, for
+ * example from the exec-maven-plugin:
+ *
+ * <pre>
+ * java com.headius.options.OptionGenerator target/generated-sources/options com.example.ConfigOptions com.example.Config
+ * </pre>
+ */
+public final class OptionGenerator {
+    private OptionGenerator() {
+    }
+
+    /**
+     * Generate an options class from the command line.
+     *
+     * @param args the output source directory, the name of the class to
+     *             generate, and the names of the classes to scan
+     * @throws Exception if a class cannot be loaded or the output cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: OptionGenerator <output dir> <generated class> <class>...");
+            System.exit(1);
+        }
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        Class[] classes = new Class[args.length - 2];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = Class.forName(args[i + 2], true, loader);
+        }
+
+        generate(Paths.get(args[0]), args[1], classes);
+    }
+
+    /**
+     * Collect the options held by the static fields of the given classes,
+     * initializing the classes if necessary.
+     *
+     * @param classes the classes to scan
+     * @return the options found, in declaration order
+     */
+    public static List<Option> scan(Class<?>... classes) {
+        List<Option> options = new ArrayList<Option>();
+        for (Class<?> cls : classes) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) || !Option.class.isAssignableFrom(field.getType())) continue;
+
+                try {
+                    field.setAccessible(true);
+                    Option option = (Option) field.get(null);
+                    if (option != null) options.add(option);
+                } catch (IllegalAccessException iae) {
+                    throw new IllegalArgumentException("cannot read option field " + field, iae);
+                }
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Generate the source of an options class for the options declared in the
+     * given classes, under the given source directory.
+     *
+     * @param directory the root directory of the generated sources
+     * @param className the fully-qualified name of the class to generate
+     * @param classes the classes to scan for options
+     * @return the path of the generated source file
+     * @throws IOException if the source file cannot be written
+     */
+    public static Path generate(Path directory, String className, Class<?>... classes) throws IOException {
+        StringBuilder from = new StringBuilder();
+        for (Class<?> cls : classes) {
+            if (from.length() > 0) from.append(", ");
+            from.append(cls.getName());
+        }
+
+        Path file = directory.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file, Charset.forName("UTF-8"))) {
+            generate(out, className, scan(classes), from.toString());
+        }
+        return file;
+    }
+
+    /**
+     * Generate the source of an options class for the given options.
+     *
+     * @param out the output to which the source is written
+     * @param className the fully-qualified name of the class to generate
+     * @param options the options to describe
+     * @param from a description of where the options were declared, for the generated comments
+     * @throws IOException if the output cannot be written
+     */
+    public static void generate(Appendable out, String className, Collection<Option> options, String from) throws IOException {
+        List<Option> sorted = new OptionIndex(options).options();
+
+        int dot = className.lastIndexOf('.');
+        String packageName = dot < 0 ? null : className.substring(0, dot);
+        String simpleName = className.substring(dot + 1);
+
+        out.append("/*\n * Generated by ").append(OptionGenerator.class.getName()).append(" from ").append(from).append(". Do not edit.\n */\n");
+        if (packageName != null) out.append("package ").append(packageName).append(";\n");
+        out.append('\n');
+
+        out.append("/**\n * Pre-computed metadata for the options declared in ").append(from).append(".\n */\n");
+        out.append("public final class ").append(simpleName).append(" {\n");
+        out.append("    private ").append(simpleName).append("() {\n    }\n\n");
+
+        out.append("    /**\n     * The property names of the options, sorted for binary search.\n     */\n");
+        out.append("    public static final String[] NAMES = {\n");
+        for (Option option : sorted) {
+            appendLiteral(out.append("        "), option.propertyName()).append(",\n");
+        }
+        out.append("    };\n\n");
+
+        out.append("    /**\n     * The defaults of the options, in the order of {@link #NAMES}, or null\n     * for options with no default or whose default is not a constant.\n     */\n");
+        out.append("    public static final Object[] DEFAULTS = {\n");
+        for (Option option : sorted) {
+            String constant = constant(option.defaultValue());
+            out.append("        ").append(constant == null ? "null" : constant).append(",\n");
+        }
+        out.append("    };\n\n");
+
+        // one literal per line keeps each constant well under the class file limit
+        out.append("    private static final String[] HELP = {\n");
+        for (String line : Option.formatOptions(options).split("\n", -1)) {
+            appendLiteral(out.append("        "), line).append(",\n");
+        }
+        out.append("    };\n\n");
+
+        out.append("    /**\n     * The metadata of the options, for {@link com.headius.options.OptionRegistry#prepare(com.headius.options.GeneratedOptions)}.\n     */\n");
+        out.append("    public static final com.headius.options.GeneratedOptions OPTIONS = new com.headius.options.GeneratedOptions(NAMES, DEFAULTS, HELP);\n\n");
+
+        out.append("    /**\n     * @param name a property name\n     * @return true if the name is the property name of one of the options\n     */\n");
+        out.append("    public static boolean isOption(String name) {\n");
+        out.append("        return java.util.Arrays.binarySearch(NAMES, name) >= 0;\n");
+        out.append("    }\n\n");
+
+        out.append("    /**\n     * @return the options as formatted by Option.formatOptions\n     */\n");
+        out.append("    public static String help() {\n");
+        out.append("        return OPTIONS.help();\n");
+        out.append("    }\n");
+        out.append("}\n");
+    }
+
+    /**
+     * @return Java source for a constant expression equal to the given value,
+     *         or null if there is none
+     */
+    private static String constant(Object value) {
+        if (value instanceof String) {
+            StringBuilder literal = new StringBuilder();
+            try {
+                appendLiteral(literal, (String) value);
+            } catch (IOException ioe) {
+                // StringBuilder does not throw IOException
+                throw new RuntimeException(ioe);
+            }
+            return literal.toString();
+        } else if (value instanceof Boolean || value instanceof Integer) {
+            return value.toString();
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else if (value instanceof Double) {
+            double d = (Double) value;
+            if (Double.isNaN(d)) return "Double.NaN";
+            if (Double.isInfinite(d)) return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+            return Double.toString(d);
+        } else if (value instanceof Enum) {
+            Class<?> type = ((Enum<?>) value).getDeclaringClass();
+            return isPublic(type) ? type.getCanonicalName() + '.' + ((Enum<?>) value).name() : null;
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            if (list.isEmpty()) return "java.util.Collections.emptyList()";
+
+            StringBuilder elements = new StringBuilder();
+            for (Object element : list) {
+                String constant = constant(element);
+                if (constant == null) return null;
+
+                if (elements.length() > 0) elements.append(", ");
+                elements.append(constant);
+            }
+            return "java.util.Collections.unmodifiableList(java.util.Arrays.asList(" + elements + "))";
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if the class and every class enclosing it are public, so
+     *         the generated class can name it from any package
+     */
+    private static boolean isPublic(Class<?> type) {
+        for (Class<?> cls = type; cls != null; cls = cls.getEnclosingClass()) {
+            if (!Modifier.isPublic(cls.getModifiers())) return false;
+        }
+        return type.getCanonicalName() != null;
+    }
+
+    private static Appendable appendLiteral(Appendable out, String value) throws IOException {
+        if (value == null) return out.append("null");
+
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < ' ' || c > '~') {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * An immutable index of options, sorted by property name.
+ *
+ * Lookups compare the given name against the sorted names in place, so no
+ * objects are allocated to find an option by name, to check whether a
+ * property is unknown, or to locate the options under a prefix.
+ *
+ * @see OptionRegistry#index()
+ */
+public final class OptionIndex {
+    /**
+     * Build an index over the given options.
+     *
+     * @param options the options to index
+     */
+    public OptionIndex(Collection<? extends Option> options) {
+        this(sort(options));
+    }
+
+    /**
+     * Build an index over options already sorted by property name, such as in
+     * the order generated by {@link OptionGenerator}, without sorting them again.
+     *
+     * @param sorted the options to index, sorted by property name
+     * @throws IllegalArgumentException if the options are not sorted or two have the same name
+     */
+    OptionIndex(Option[] sorted) {
+        String[] names = new String[sorted.length];
+        TreeSet<String> prefixes = new TreeSet<String>();
+        for (int i = 0; i < sorted.length; i++) {
+            names[i] = sorted[i].propertyName();
+            int order = i == 0 ? 1 : names[i].compareTo(names[i - 1]);
+            if (order == 0) {
+                throw new IllegalArgumentException("an option named " + names[i] + " is already indexed");
+            } else if (order < 0) {
+                throw new IllegalArgumentException("option " + names[i] + " is out of order");
+            }
+
+            String prefix = sorted[i].prefix();
+            if (prefix != null) prefixes.add(prefix);
+        }
+
+        this.names = names;
+        this.options = sorted;
+        this.optionList = Collections.unmodifiableList(Arrays.asList(sorted));
+        this.prefixes = prefixes.toArray(new String[prefixes.size()]);
+    }
+
+    private static Option[] sort(Collection<? extends Option> options) {
+        Option[] sorted = options.toArray(new Option[options.size()]);
+        Arrays.sort(sorted, PropertyNameComparator);
+
+        return sorted;
+    }
+
+    /**
+     * Look up an option by its full property name.
+     *
+     * @param name the property name
+     * @return the option, or null if no option has that name
+     */
+    public Option get(CharSequence name) {
+        return get(name, 0, name.length());
+    }
+
+    /**
+     * Look up an option by the property name in a region of the given
+     * characters, without copying it out.
+     */
+    Option get(CharSequence name, int start, int end) {
+        int index = search(names, name, start, end);
+
+        return index < 0 ? null : options[index];
+    }
+
+    /**
+     * Find all options whose property names start with the given prefix, such
+     * as "jruby.jit.".
+     *
+     * @param prefix the property name prefix
+     * @return an unmodifiable view of the matching options, sorted by property name
+     */
+    public List<Option> findByPrefix(CharSequence prefix) {
+        int length = prefix.length();
+        int from = lowerBound(prefix, length);
+        int to = from;
+
+        // advance to the first name that no longer starts with the prefix
+        int high = names.length;
+        while (to < high) {
+            int mid = (to + high) >>> 1;
+            if (startsWith(names[mid], prefix, length)) {
+                to = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return optionList.subList(from, to);
+    }
+
+    /**
+     * @return all indexed options, sorted by property name
+     */
+    public List<Option> options() {
+        return optionList;
+    }
+
+    /**
+     * @return the number of indexed options
+     */
+    public int size() {
+        return options.length;
+    }
+
+    /**
+     * Determine whether the given property falls under the prefix of an indexed
+     * option but does not name any option, as when a property name is mistyped.
+     *
+     * @param name the property name
+     * @return true if the property is under a known prefix but names no option
+     */
+    public boolean isUnknown(CharSequence name) {
+        return underPrefix(name) && search(names, name, 0, name.length()) < 0;
+    }
+
+    /**
+     * Find the properties that fall under the prefix of an indexed option but
+     * do not name any option.
+     *
+     * @param names the property names to check, such as the system property names
+     * @return the unknown property names, in the order given
+     * @see #isUnknown(CharSequence)
+     */
+    public List<String> unknownProperties(Collection<String> names) {
+        List<String> unknown = new ArrayList<String>();
+
+        for (String name : names) {
+            if (isUnknown(name)) unknown.add(name);
+        }
+
+        return unknown;
+    }
+
+    /**
+     * Find the properties that start with the given prefix but do not name any
+     * option.
+     *
+     * @param names the property names to check, such as the system property names
+     * @param prefix the property name prefix, such as "jruby."
+     * @return the unknown property names, in the order given
+     */
+    public List<String> unknownProperties(Collection<String> names, String prefix) {
+        List<String> unknown = new ArrayList<String>();
+
+        for (String name : names) {
+            if (name.startsWith(prefix) && search(this.names, name, 0, name.length()) < 0) unknown.add(name);
+        }
+
+        return unknown;
+    }
+
+    private boolean underPrefix(CharSequence name) {
+        for (int i = 0, length = name.length(); i < length; i++) {
+            if (name.charAt(i) == '.' && search(prefixes, name, 0, i) >= 0) return true;
+        }
+
+        return false;
+    }
+
+    private int lowerBound(CharSequence key, int length) {
+        int low = 0;
+        int high = names.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(names[mid], key, 0, length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    static int search(String[] sorted, CharSequence key, int start, int end) {
+        int low = 0;
+        int high = sorted.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(sorted[mid], key, start, end);
+
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int compare(String name, CharSequence key, int start, int end) {
+        int length = end - start;
+        int limit = Math.min(name.length(), length);
+
+        for (int i = 0; i < limit; i++) {
+            int diff = name.charAt(i) - key.charAt(start + i);
+            if (diff != 0) return diff;
+        }
+
+        return name.length() - length;
+    }
+
+    private static boolean startsWith(String name, CharSequence prefix, int length) {
+        if (name.length() < length) return false;
+
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != prefix.charAt(i)) return false;
+        }
+
+        return true;
+    }
+
+    private static final Comparator<Option> PropertyNameComparator = new Comparator<Option>() {
+        public int compare(Option o1, Option o2) {
+            return o1.propertyName().compareTo(o2.propertyName());
+        }
+    };
+
+    private final String[] names;
+    private final Option[] options;
+    private final List<Option> optionList;
+    private final String[] prefixes;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A listener notified when the value of a single option changes.
+ *
+ * @param <T> the type of value associated with the option
+ * @see Option#addListener(OptionListener, java.util.concurrent.Executor)
+ */
+public interface OptionListener<T> {
+    /**
+     * Called after the option's new value has been published.
+     *
+     * @param change the change to the option's value
+     */
+    void optionChanged(OptionChange<T> change);
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.RuntimeOperationsException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * A dynamic MBean exposing the options of an {@link OptionRegistry} for live
+ * inspection and change from a JMX console.
+ *
+ * Each registered option appears as a read-only attribute named for its
+ * property, holding its current value as a string. Operations report an
+ * option's default, whether it was specified and where its value came from,
+ * and force or unforce it. Options registered after the bean is created
+ * appear the next time its info is read.
+ */
+public final class OptionMBean implements DynamicMBean {
+    /**
+     * Create a bean for the given registry.
+     *
+     * @param registry the registry whose options are exposed
+     */
+    public OptionMBean(OptionRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Register a bean for the given registry with the platform MBean server,
+     * as com.headius.options:type=OptionRegistry,name=(name).
+     *
+     * @param registry the registry whose options are exposed
+     * @param name a name distinguishing the registry from others in the JVM
+     * @return the name under which the bean was registered
+     * @throws JMException if the bean cannot be registered
+     */
+    public static ObjectName register(OptionRegistry registry, String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.headius.options:type=OptionRegistry,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new OptionMBean(registry), objectName);
+        return objectName;
+    }
+
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Option option = registry.get(attribute);
+        if (option == null) throw new AttributeNotFoundException("no option named " + attribute);
+
+        return value(option);
+    }
+
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        if (registry.get(attribute.getName()) == null) throw new AttributeNotFoundException("no option named " + attribute.getName());
+
+        throw new RuntimeOperationsException(new UnsupportedOperationException("option " + attribute.getName() + " is read-only; use the force operation"));
+    }
+
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Option option = registry.get(attribute);
+            if (option != null) list.add(new Attribute(attribute, value(option)));
+        }
+        return list;
+    }
+
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (params == null) params = new Object[0];
+
+        if (actionName.equals("formatValues") && params.length == 0) return registry.formatValues();
+
+        if (params.length == 0 || !(params[0] instanceof String)) {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "no operation " + actionName + " taking these arguments");
+        }
+
+        Option option = registry.get((String) params[0]);
+        if (option == null) throw new RuntimeOperationsException(new IllegalArgumentException("no option named " + params[0]));
+
+        if (params.length == 1) {
+            if (actionName.equals("unforce")) {
+                option.unforce();
+                return null;
+            }
+            if (actionName.equals("isSpecified")) {
+                option.load();
+                return option.isSpecified();
+            }
+            if (actionName.equals("defaultValue")) {
+                return option.defaultValue() == null ? null : Option.property(option, option.defaultValue());
+            }
+            if (actionName.equals("origin")) {
+                option.load();
+                return option.origin();
+            }
+        } else if (params.length == 2 && actionName.equals("force") && params[1] instanceof String) {
+            try {
+                option.force((String) params[1]);
+            } catch (UnsupportedOperationException uoe) {
+                // a derived option cannot be forced
+                throw new RuntimeOperationsException(uoe, uoe.getMessage());
+            }
+            return null;
+        }
+
+        throw new ReflectionException(new NoSuchMethodException(actionName), "no operation " + actionName + " taking these arguments");
+    }
+
+    public MBeanInfo getMBeanInfo() {
+        List<Option> options = registry.options();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[options.size()];
+        for (int i = 0; i < attributes.length; i++) {
+            Option option = options.get(i);
+            attributes[i] = new MBeanAttributeInfo(option.propertyName(), String.class.getName(), option.description(), true, false, false);
+        }
+
+        return new MBeanInfo(getClass().getName(), "Options of an OptionRegistry", attributes, null, OPERATIONS, null);
+    }
+
+    private static String value(Option option) {
+        Object value = option.load();
+        return value == null ? null : Option.property(option, value);
+    }
+
+    private static MBeanOperationInfo operation(String name, String description, Class<?> returnType, int impact, String... params) {
+        MBeanParameterInfo[] signature = new MBeanParameterInfo[params.length];
+        for (int i = 0; i < params.length; i++) {
+            signature[i] = new MBeanParameterInfo(params[i], String.class.getName(), params[i]);
+        }
+        return new MBeanOperationInfo(name, description, signature, returnType.getName(), impact);
+    }
+
+    private static final MBeanOperationInfo[] OPERATIONS = {
+            operation("force", "Force an option to a value", void.class, MBeanOperationInfo.ACTION, "name", "value"),
+            operation("unforce", "Remove a forced value from an option", void.class, MBeanOperationInfo.ACTION, "name"),
+            operation("isSpecified", "Whether an option's property was specified", boolean.class, MBeanOperationInfo.INFO, "name"),
+            operation("defaultValue", "An option's default value", String.class, MBeanOperationInfo.INFO, "name"),
+            operation("origin", "Where an option's value came from", String.class, MBeanOperationInfo.INFO, "name"),
+            operation("formatValues", "The values of all options, by category", String.class, MBeanOperationInfo.INFO)
+    };
+
+    private final OptionRegistry registry;
+}
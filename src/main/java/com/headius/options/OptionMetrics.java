@@ -0,0 +1,180 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A snapshot of how often an option has been used, for finding the options
+ * read on hot paths, which may deserve {@link Option#asConstantHandle()}, and
+ * those never read at all.
+ *
+ * Metrics are collected only when the JVM is started with
+ * -Dcom.headius.options.metrics=true. Otherwise each instrumented path costs a
+ * single branch on a constant, which the JIT removes, and no counters are
+ * allocated. In a native image the setting is read when the image starts.
+ *
+ * @see Option#metrics()
+ * @see OptionRegistry#metrics()
+ */
+public final class OptionMetrics {
+    /**
+     * Whether metrics are being collected in this JVM.
+     */
+    public static final boolean ENABLED = enabled();
+
+    OptionMetrics(Option<?> option, long loads, long forces, long unforces, long[] parseHistogram) {
+        this.option = option;
+        this.loads = loads;
+        this.forces = forces;
+        this.unforces = unforces;
+        this.parseHistogram = parseHistogram;
+
+        long parses = 0;
+        for (long count : parseHistogram) parses += count;
+        this.parses = parses;
+    }
+
+    /**
+     * @return the option measured
+     */
+    public Option<?> option() {
+        return option;
+    }
+
+    /**
+     * @return the number of times the option's value was read, by
+     *         {@link Option#load()} or a primitive load method
+     */
+    public long loads() {
+        return loads;
+    }
+
+    /**
+     * @return the number of times the option's property was read and parsed,
+     *         on its first load and on every reload, force and unforce
+     */
+    public long parses() {
+        return parses;
+    }
+
+    /**
+     * @return the number of calls to {@link Option#force(String)}
+     */
+    public long forces() {
+        return forces;
+    }
+
+    /**
+     * @return the number of calls to {@link Option#unforce()}
+     */
+    public long unforces() {
+        return unforces;
+    }
+
+    /**
+     * Return the times taken to parse the option's property, as counts of
+     * parses in buckets of powers of two: bucket i counts the parses that
+     * took at least 2^(i-1) and less than 2^i nanoseconds.
+     *
+     * @return a copy of the histogram of parse times
+     */
+    public long[] parseHistogram() {
+        return parseHistogram.clone();
+    }
+
+    /**
+     * Estimate a percentile of the time taken to parse the option's property,
+     * as the upper bound of the histogram bucket in which it falls.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the estimated time in nanoseconds, or 0 if the property has not been parsed
+     */
+    public long parseNanos(double percentile) {
+        if (parses == 0) return 0;
+
+        long rank = (long) Math.ceil(parses * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < parseHistogram.length; i++) {
+            seen += parseHistogram[i];
+            if (seen >= rank && seen > 0) return upperBound(i);
+        }
+
+        return upperBound(parseHistogram.length - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder()
+                .append("loads=").append(loads)
+                .append(", parses=").append(parses)
+                .append(", forces=").append(forces)
+                .append(", unforces=").append(unforces);
+        if (parses > 0) {
+            sb
+                    .append(", parse median<=").append(parseNanos(50)).append("ns")
+                    .append(", max<=").append(parseNanos(100)).append("ns");
+        }
+        return sb.toString();
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    private static boolean enabled() {
+        try {
+            return Boolean.getBoolean("com.headius.options.metrics");
+        } catch (SecurityException se) {
+            return false;
+        }
+    }
+
+    /**
+     * The live counters for one option, allocated on its first use when metrics
+     * are enabled. Loads may come from many threads at once, so they are
+     * counted in a striped adder; the rarer changes and parses are counted
+     * directly.
+     */
+    static final class Counters {
+        void parsed(long nanos) {
+            parseHistogram.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)));
+        }
+
+        OptionMetrics snapshot(Option<?> option) {
+            long[] histogram = new long[parseHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = parseHistogram.get(i);
+            }
+
+            return new OptionMetrics(option, loads.sum(), forces.sum(), unforces.sum(), histogram);
+        }
+
+        final LongAdder loads = new LongAdder();
+        final LongAdder forces = new LongAdder();
+        final LongAdder unforces = new LongAdder();
+        private final AtomicLongArray parseHistogram = new AtomicLongArray(65);
+    }
+
+    private final Option<?> option;
+    private final long loads;
+    private final long parses;
+    private final long forces;
+    private final long unforces;
+    private final long[] parseHistogram;
+}
@@ -0,0 +1,1067 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A set of options loaded together from snapshots of an ordered chain of
+ * {@link OptionSource}s.
+ *
+ * Rather than each option looking up its own property in the system properties,
+ * the registry takes one snapshot of each source and resolves every registered
+ * option's property from them up front. Once the registry has been loaded,
+ * {@link Option#load()} and {@link Option#reload()} on its options read the
+ * resolved property by index; call {@link #load()} again to take new
+ * snapshots, or {@link #refresh(OptionSource)} to take a new snapshot of one
+ * source.
+ *
+ * An option may belong to only one registry, and property names within a
+ * registry must be unique.
+ */
+public class OptionRegistry {
+    /**
+     * Create a new, empty registry.
+     */
+    public OptionRegistry() {
+    }
+
+    /**
+     * Create a new registry containing the given options.
+     *
+     * @param options the options to register
+     */
+    public OptionRegistry(Option... options) {
+        register(options);
+    }
+
+    /**
+     * Create a new registry containing the given options.
+     *
+     * @param options the options to register
+     */
+    public OptionRegistry(Collection<? extends Option> options) {
+        register(options);
+    }
+
+    /**
+     * Register the given options with this registry.
+     *
+     * @param options the options to register
+     */
+    public void register(Option... options) {
+        register(Arrays.asList(options));
+    }
+
+    /**
+     * Register the given options with this registry.
+     *
+     * @param options the options to register
+     */
+    public synchronized void register(Collection<? extends Option> options) {
+        int size = this.options.size() + options.size();
+        this.options.ensureCapacity(size);
+        if (byName.isEmpty()) byName = new HashMap<String, Option>(size * 4 / 3 + 1);
+
+        for (Option<?> option : options) {
+            register(option);
+        }
+    }
+
+    /**
+     * Register the given option with this registry. If the registry has
+     * already been loaded, the option's property is resolved from the
+     * registry's current snapshots of its sources.
+     *
+     * @param option the option to register
+     * @param <T> the type of value associated with the option
+     * @return the given option
+     */
+    public synchronized <T> Option<T> register(Option<T> option) {
+        String name = option.propertyName();
+        Option existing = byName.put(name, option);
+        if (existing != null) {
+            byName.put(name, existing);
+            throw new IllegalArgumentException("an option named " + name + " is already registered");
+        }
+
+        try {
+            option.register(this, options.size());
+        } catch (IllegalArgumentException iae) {
+            byName.remove(name);
+            throw iae;
+        }
+        options.add(option);
+        index = null;
+        sorted = null;
+        generated = null;
+        parser = null;
+        values = null;
+
+        Resolution resolution = this.resolution;
+        if (resolution != null) {
+            resolution = resolution.withSize(options.size());
+            resolution.resolve(options.size() - 1, name);
+            this.resolution = resolution;
+        }
+
+        return option;
+    }
+
+    /**
+     * Look up a registered option by its full property name.
+     *
+     * @param propertyName the property name of the option
+     * @return the option, or null if no such option is registered
+     */
+    public synchronized Option get(String propertyName) {
+        return byName.get(propertyName);
+    }
+
+    /**
+     * Return an index over the registered options for lookup by name or prefix
+     * and detection of unknown properties. The index is built on first use and
+     * rebuilt only after more options are registered.
+     *
+     * @return an index of the registered options
+     */
+    public synchronized OptionIndex index() {
+        OptionIndex index = this.index;
+        if (index == null) this.index = index = new OptionIndex(options);
+
+        return index;
+    }
+
+    /**
+     * Parse command-line arguments naming registered options, by their full
+     * property names or their names without prefix. The parser is built on
+     * first use and rebuilt only after more options are registered.
+     *
+     * @param args the command-line arguments
+     * @return the properties given for options, the other arguments, and any errors
+     * @see ArgumentParser
+     */
+    public OptionArguments parseArguments(String... args) {
+        ArgumentParser parser;
+        synchronized (this) {
+            parser = this.parser;
+            if (parser == null) this.parser = parser = new ArgumentParser(index());
+        }
+
+        return parser.parse(args);
+    }
+
+    /**
+     * Return the registered options sorted and grouped by category, as used by
+     * the formatting methods. The view is built on first use and rebuilt only
+     * after more options are registered.
+     *
+     * @return the sorted registered options
+     */
+    public synchronized SortedOptions sorted() {
+        SortedOptions sorted = this.sorted;
+        if (sorted == null) this.sorted = sorted = new SortedOptions(options);
+
+        return sorted;
+    }
+
+    /**
+     * Build this registry's lookup tables ahead of time and discard anything
+     * loaded so far, leaving only the property overlay of {@link #load()} to
+     * be done at run time.
+     *
+     * A registry prepared in a static initializer that runs while building a
+     * native image (with --initialize-at-build-time) or an application class
+     * archive keeps its index and sorted view in the image, rather than
+     * rebuilding them in every process, and carries none of the build
+     * machine's properties. Enumeration options created for such a registry
+     * should be given their constants explicitly, as with
+     * {@link Option#enumeration(String, Enum, Enum[], Enum, String)}.
+     *
+     * @return this registry
+     */
+    public OptionRegistry prepare() {
+        synchronized (this) {
+            index();
+            sorted();
+        }
+
+        return unloadAll();
+    }
+
+    /**
+     * Take this registry's index and help text from metadata generated at
+     * build time by {@link OptionGenerator}, rather than sorting and
+     * formatting the options at startup, and discard anything loaded so far.
+     * The generated help is used by {@link #formatOptions()} until more
+     * options are registered.
+     *
+     * @param generated the metadata generated for the registered options
+     * @return this registry
+     * @throws IllegalArgumentException if the registered options differ from
+     *         the generated ones, as when the generated class is out of date
+     */
+    public OptionRegistry prepare(GeneratedOptions generated) {
+        synchronized (this) {
+            index = new OptionIndex(generated.sort(byName));
+            this.generated = generated;
+        }
+
+        return unloadAll();
+    }
+
+    private OptionRegistry unloadAll() {
+        List<Option> unloading;
+        synchronized (this) {
+            resolution = null;
+            unloading = new ArrayList<Option>(options);
+        }
+
+        for (Option option : unloading) {
+            option.unload();
+        }
+
+        return this;
+    }
+
+    /**
+     * Find the system properties under the prefix of a registered option that
+     * do not name any registered option.
+     *
+     * @return the unknown property names
+     * @see OptionIndex#unknownProperties(Collection)
+     */
+    public List<String> unknownProperties() {
+        return index().unknownProperties(new SystemPropertiesSource().properties().keySet());
+    }
+
+    /**
+     * @return an unmodifiable copy of the registered options, in registration order
+     */
+    public synchronized List<Option> options() {
+        return Collections.unmodifiableList(new ArrayList<Option>(options));
+    }
+
+    /**
+     * @return the number of registered options
+     */
+    public synchronized int size() {
+        return options.size();
+    }
+
+    /**
+     * Set the sources from which this registry resolves its options' properties,
+     * in order of precedence. The sources are used from the next
+     * {@link #load()}. A new registry resolves from the system properties alone.
+     *
+     * @param sources the sources, highest precedence first
+     */
+    public synchronized void sources(OptionSource... sources) {
+        this.sources = Collections.unmodifiableList(Arrays.asList(sources.clone()));
+    }
+
+    /**
+     * @return the sources from which this registry resolves its options, highest precedence first
+     */
+    public synchronized List<OptionSource> sources() {
+        return sources;
+    }
+
+    /**
+     * Take a single snapshot of each source and resolve all registered options
+     * from them, recording for each option the first source that provides its
+     * property.
+     */
+    public void load() {
+        List<OptionSource> sources;
+        synchronized (this) {
+            sources = this.sources;
+        }
+
+        resolve(sources);
+    }
+
+    /**
+     * Resolve all registered options from the given properties alone, instead
+     * of the registry's sources. The map is copied, so later changes to it are
+     * not seen.
+     *
+     * @param properties a map of property names to values
+     */
+    public void load(Map<String, String> properties) {
+        resolve(Collections.singletonList(OptionSource.fromMap("map", properties)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resolve(List<OptionSource> sources) {
+        OptionSource[] resolving = sources.toArray(new OptionSource[sources.size()]);
+        Map<String, String>[] layers = new Map[resolving.length];
+
+        // sources may do I/O, so snapshot them before locking
+        for (int i = 0; i < resolving.length; i++) {
+            layers[i] = resolving[i].properties(index());
+        }
+
+        List<Option> loading;
+        synchronized (this) {
+            Resolution resolution = new Resolution(resolving, layers, options.size());
+
+            // overlay the layers from lowest precedence up, walking whichever of
+            // the layer and the options is smaller; typically only a few of the
+            // registered options are actually set
+            for (int layer = layers.length - 1; layer >= 0; layer--) {
+                if (layers[layer].size() < options.size()) {
+                    for (Map.Entry<String, String> entry : layers[layer].entrySet()) {
+                        Option option = byName.get(entry.getKey());
+                        if (option != null && entry.getValue() != null) resolution.set(option.registryIndex(), entry.getValue(), layer);
+                    }
+                } else {
+                    for (int i = 0; i < options.size(); i++) {
+                        String value = layers[layer].get(options.get(i).propertyName());
+                        if (value != null) resolution.set(i, value, layer);
+                    }
+                }
+            }
+
+            this.resolution = resolution;
+            loading = new ArrayList<Option>(options);
+        }
+
+        for (Option option : loading) {
+            option.reload();
+        }
+    }
+
+    /**
+     * Take a new snapshot of one of this registry's sources, reloading only the
+     * registered options whose resolved properties changed as a result. The new
+     * resolution is published in a single swap before those options are
+     * reloaded. Nothing is done if the registry has not been loaded.
+     *
+     * @param source one of the registry's sources
+     */
+    public void refresh(OptionSource source) {
+        Map<String, String> layer = source.properties(index());
+        List<Option> changed = new ArrayList<Option>();
+
+        synchronized (this) {
+            Resolution current = this.resolution;
+            if (current == null) return;
+
+            int layerIndex = current.indexOf(source);
+            if (layerIndex < 0) throw new IllegalArgumentException("source " + source.name() + " was not loaded by this registry");
+
+            Resolution next = current.withLayer(layerIndex, layer);
+            Map<String, String> previous = current.layers[layerIndex];
+            for (int i = 0; i < options.size(); i++) {
+                String name = options.get(i).propertyName();
+                if (equal(previous.get(name), layer.get(name))) continue;
+
+                next.resolve(i, name);
+                if (!equal(current.values[i], next.values[i]) || current.origins[i] != next.origins[i]) {
+                    changed.add(options.get(i));
+                }
+            }
+
+            this.resolution = next;
+        }
+
+        for (Option option : changed) {
+            option.reload();
+        }
+    }
+
+    /**
+     * @return true if the registry has been loaded from its sources
+     */
+    public boolean isLoaded() {
+        return resolution != null;
+    }
+
+    /**
+     * Return an immutable snapshot of the values of all registered options,
+     * loading any that have not been loaded.
+     *
+     * The snapshot is shared until a registered option's value changes. Values
+     * changed together by an {@link OptionTransaction} appear in a new
+     * snapshot all at once, so a reader that takes its values from one
+     * snapshot never sees some of a transaction's changes without the rest,
+     * and never takes a lock while the snapshot is current. After other
+     * changes, the first reader rebuilds the snapshot under the registry's
+     * lock.
+     *
+     * @return the current values of the registered options
+     */
+    public OptionValues values() {
+        OptionValues values = this.values;
+        if (values != null) return values;
+
+        synchronized (this) {
+            values = this.values;
+            if (values == null) values = publishValues();
+
+            return values;
+        }
+    }
+
+    /**
+     * Begin staging changes to registered options, to be applied together by
+     * {@link OptionTransaction#commit()}.
+     *
+     * @return a new transaction on this registry
+     */
+    public OptionTransaction transaction() {
+        return new OptionTransaction(this);
+    }
+
+    /**
+     * Apply the given changes, publishing them to readers of {@link #values()}
+     * in a single swap and to listeners in a single batch. A null value
+     * unforces the option.
+     *
+     * Every value is parsed before any option is changed, so a value that
+     * cannot be forced leaves all of the options as they were. Listeners are
+     * notified once the registry's lock has been released.
+     */
+    @SuppressWarnings("unchecked")
+    void commit(final Option[] changing, final String[] forcing) {
+        synchronized (this) {
+            for (Option option : changing) {
+                checkRegistered(option);
+            }
+        }
+
+        final Option.Parse[] parses = new Option.Parse[changing.length];
+        for (int i = 0; i < changing.length; i++) {
+            if (forcing[i] != null) parses[i] = changing[i].prepareForce(forcing[i]);
+        }
+
+        List<Runnable> notifications = new ArrayList<Runnable>();
+        batching.incrementAndGet();
+        try {
+            synchronized (this) {
+                // readers keep the previous values until the new ones are built
+                values();
+
+                try {
+                    Option.deferNotifications(new Runnable() {
+                        public void run() {
+                            for (int i = 0; i < changing.length; i++) {
+                                if (forcing[i] == null) {
+                                    changing[i].unforce();
+                                } else {
+                                    changing[i].force(forcing[i], parses[i]);
+                                }
+                            }
+                        }
+                    }, notifications);
+                } finally {
+                    publishValues();
+                }
+            }
+
+            for (Runnable notification : notifications) {
+                notification.run();
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Note that a registered option's published value has changed, so that
+     * {@link #values()} must be rebuilt and the constraints that read it must
+     * be checked again. While a transaction holds the registry's lock, readers
+     * keep the previous values until it completes.
+     */
+    void optionUpdated(Option option) {
+        MODIFICATIONS.incrementAndGet(this);
+        if (values != null && !Thread.holdsLock(this)) values = null;
+
+        Constraints constraints = this.constraints;
+        if (constraints != null) constraints.changed(option.registryIndex());
+    }
+
+    /**
+     * Build new values under the registry's lock and publish them.
+     */
+    private OptionValues publishValues() {
+        Option[] options = this.options.toArray(new Option[this.options.size()]);
+        Object[] read = new Object[options.length];
+
+        // start over if an option changes while the values are being read
+        long modifications;
+        while (true) {
+            modifications = this.modifications;
+            for (int i = 0; i < options.length; i++) {
+                read[i] = options[i].loadGlobal();
+            }
+            if (modifications == this.modifications) break;
+        }
+
+        OptionValues values = new OptionValues(options, read);
+        this.values = values;
+
+        // an option changed since the values were read may have found nothing
+        // to clear, so clear them unless a newer reader has replaced them
+        if (modifications != this.modifications) VALUES.compareAndSet(this, values, null);
+
+        return values;
+    }
+
+    /**
+     * Add a constraint between registered options, to be checked by
+     * {@link #violations()}.
+     *
+     * The constraints form a graph from each option to the options it depends
+     * on, which is built and ordered here rather than on every check; the
+     * dependencies may not be circular. Afterwards, forcing, unforcing or
+     * reloading an option marks only the constraints that read it to be
+     * checked again.
+     *
+     * @param constraint the constraint to add
+     * @throws IllegalArgumentException if the constraint reads an option not
+     *         registered with this registry, or its dependencies form a cycle
+     */
+    public synchronized void constrain(OptionConstraint constraint) {
+        checkRegistered(constraint.subject());
+        for (Option option : constraint.dependencies()) {
+            checkRegistered(option);
+        }
+
+        List<OptionConstraint> all = new ArrayList<OptionConstraint>();
+        if (constraints != null) all.addAll(Arrays.asList(constraints.order));
+        all.add(constraint);
+
+        constraints = new Constraints(all, options.size());
+    }
+
+    /**
+     * Check the constraints affected by changes since the last call, and
+     * report every constraint that does not hold.
+     *
+     * Constraints are checked against the options' global values, ignoring
+     * any {@link OptionScope}, and reported with those on an option's
+     * dependencies before those on the option itself.
+     *
+     * @return the violated constraints, or an empty list if all hold
+     */
+    public List<OptionViolation> violations() {
+        Constraints constraints = this.constraints;
+        if (constraints == null) return Collections.emptyList();
+
+        return constraints.violations();
+    }
+
+    private void checkRegistered(Option option) {
+        if (option.registryIndex() >= options.size() || options.get(option.registryIndex()) != option) {
+            throw new IllegalArgumentException("option " + option.propertyName() + " is not registered with this registry");
+        }
+    }
+
+    /**
+     * Add a listener to be notified of changes to registered options in batches,
+     * called through the given executor rather than on the changing thread.
+     *
+     * Changes are collected until the executor runs the dispatch, so many
+     * options changed in quick succession, or within {@link #batch(Runnable)},
+     * are delivered together, with repeated changes to one option coalesced.
+     *
+     * @param listener the listener to add
+     * @param executor the executor on which the listener is called
+     */
+    public void addListener(OptionBatchListener listener, Executor executor) {
+        dispatchers.add(new Dispatcher(listener, executor));
+    }
+
+    /**
+     * Remove a listener previously added to this registry.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(OptionBatchListener listener) {
+        for (Dispatcher dispatcher : dispatchers) {
+            if (dispatcher.listener == listener) dispatchers.remove(dispatcher);
+        }
+    }
+
+    /**
+     * Run the given changes, holding back notification of registry listeners
+     * until they are complete so that they are delivered as a single batch.
+     *
+     * @param changes code that changes registered options, such as by forcing them
+     */
+    public void batch(Runnable changes) {
+        batching.incrementAndGet();
+        try {
+            changes.run();
+        } finally {
+            endBatch();
+        }
+    }
+
+    private void endBatch() {
+        if (batching.decrementAndGet() == 0) {
+            for (Dispatcher dispatcher : dispatchers) {
+                dispatcher.schedule();
+            }
+        }
+    }
+
+    boolean hasListeners() {
+        return !dispatchers.isEmpty();
+    }
+
+    void optionChanged(OptionChange<?> change) {
+        for (Dispatcher dispatcher : dispatchers) {
+            dispatcher.add(change);
+        }
+    }
+
+    /**
+     * Collects and coalesces changes for one listener until its executor runs.
+     */
+    private final class Dispatcher implements Runnable {
+        Dispatcher(OptionBatchListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void add(OptionChange change) {
+            OptionChange previous = pending.get(change.option());
+            pending.put(change.option(), previous == null ? change : previous.coalesce(change));
+
+            schedule();
+        }
+
+        synchronized void schedule() {
+            if (scheduled || pending.isEmpty() || batching.get() > 0) return;
+
+            scheduled = true;
+            executor.execute(this);
+        }
+
+        public void run() {
+            Map<Option, OptionChange<?>> changes;
+            synchronized (this) {
+                changes = pending;
+                pending = new LinkedHashMap<Option, OptionChange<?>>();
+                scheduled = false;
+            }
+
+            List<OptionChange<?>> batch = new ArrayList<OptionChange<?>>(changes.size());
+            for (OptionChange<?> change : changes.values()) {
+                if (!change.isEmpty()) batch.add(change);
+            }
+
+            if (!batch.isEmpty()) listener.optionsChanged(Collections.unmodifiableList(batch));
+        }
+
+        final OptionBatchListener listener;
+        final Executor executor;
+        private Map<Option, OptionChange<?>> pending = new LinkedHashMap<Option, OptionChange<?>>();
+        private boolean scheduled;
+    }
+
+    /**
+     * Format the registered options in a way suitable for use as a configuration
+     * file or documentation.
+     *
+     * @return a formatted string representing the options as a config file or document
+     * @see Option#formatOptions(Collection)
+     */
+    public String formatOptions() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            formatOptions(sb);
+        } catch (IOException ioe) {
+            // StringBuilder does not throw IOException
+            throw new RuntimeException(ioe);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Format the registered options in a way suitable for use as a configuration
+     * file or documentation, writing directly to the given output.
+     *
+     * @param out the output to which the formatted options are written
+     * @throws IOException if the output cannot be written
+     * @see Option#formatOptions(Appendable, SortedOptions)
+     */
+    public void formatOptions(Appendable out) throws IOException {
+        GeneratedOptions generated;
+        synchronized (this) {
+            generated = this.generated;
+        }
+
+        if (generated != null) {
+            out.append(generated.help());
+        } else {
+            Option.formatOptions(out, sorted());
+        }
+    }
+
+    /**
+     * Format the registered options to show their loaded values.
+     *
+     * @return a formatted string representing the options
+     * @see Option#formatValues(Collection)
+     */
+    public String formatValues() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            formatValues(sb);
+        } catch (IOException ioe) {
+            // StringBuilder does not throw IOException
+            throw new RuntimeException(ioe);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Format the registered options to show their loaded values, writing
+     * directly to the given output.
+     *
+     * @param out the output to which the formatted options are written
+     * @throws IOException if the output cannot be written
+     * @see Option#formatValues(Appendable, SortedOptions)
+     */
+    public void formatValues(Appendable out) throws IOException {
+        Option.formatValues(out, sorted());
+    }
+
+    /**
+     * Write the registered options' schema and current values as JSON.
+     *
+     * @param out the output to which the document is written
+     * @throws IOException if the output cannot be written
+     * @see OptionCodec#writeJson(Appendable, Collection)
+     */
+    public void writeJson(Appendable out) throws IOException {
+        OptionCodec.writeJson(out, options());
+    }
+
+    /**
+     * Write the registered options' schema and current values in the compact
+     * binary encoding.
+     *
+     * @param out the output to which the options are written
+     * @throws IOException if the output cannot be written
+     * @see OptionCodec#writeBinary(OutputStream, Collection)
+     */
+    public void writeBinary(OutputStream out) throws IOException {
+        OptionCodec.writeBinary(out, options());
+    }
+
+    /**
+     * Return a snapshot of how often each registered option has been used.
+     *
+     * @return the metrics of the registered options in registration order, or
+     *         an empty list if {@link OptionMetrics#ENABLED} is false
+     * @see OptionMetrics
+     */
+    public List<OptionMetrics> metrics() {
+        if (!OptionMetrics.ENABLED) return Collections.emptyList();
+
+        List<OptionMetrics> metrics = new ArrayList<OptionMetrics>();
+        for (Option option : options()) {
+            metrics.add(option.metrics());
+        }
+        return Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * Format the registered options to show how often each has been used.
+     *
+     * @return a formatted string representing the options' metrics
+     * @see Option#formatMetrics(Appendable, SortedOptions)
+     */
+    public String formatMetrics() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            formatMetrics(sb);
+        } catch (IOException ioe) {
+            // StringBuilder does not throw IOException
+            throw new RuntimeException(ioe);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Format the registered options to show how often each has been used,
+     * writing directly to the given output.
+     *
+     * @param out the output to which the formatted metrics are written
+     * @throws IOException if the output cannot be written
+     * @see Option#formatMetrics(Appendable, SortedOptions)
+     */
+    public void formatMetrics(Appendable out) throws IOException {
+        Option.formatMetrics(out, sorted());
+    }
+
+    /**
+     * @return the current resolution of the registered options' properties, or
+     * null if the registry has not been loaded
+     */
+    Resolution resolution() {
+        return resolution;
+    }
+
+    /**
+     * Describe the origin of the property resolved for the option at the given index.
+     *
+     * @param index the option's index within the registry
+     * @return the name of the source that supplied the property, "default" if
+     *         none did, or null if the registry has not resolved the option
+     */
+    String origin(int index) {
+        Resolution resolution = this.resolution;
+        if (resolution == null || index >= resolution.values.length) return null;
+
+        int origin = resolution.origins[index];
+        return origin < 0 ? "default" : resolution.sources[origin].name();
+    }
+
+    /**
+     * The registry's constraints in dependency order, with the constraints
+     * reading each option and the result of the last check of each.
+     */
+    private static final class Constraints {
+        Constraints(List<OptionConstraint> constraints, int size) {
+            // number the options involved, then order them so that every
+            // option comes after the options it depends on
+            Map<Option, Integer> nodes = new IdentityHashMap<Option, Integer>();
+            List<Option> byNode = new ArrayList<Option>();
+            for (OptionConstraint constraint : constraints) {
+                node(nodes, byNode, constraint.subject());
+                for (Option dependency : constraint.dependencies()) {
+                    node(nodes, byNode, dependency);
+                }
+            }
+
+            List<List<Integer>> dependents = new ArrayList<List<Integer>>(byNode.size());
+            for (int i = 0; i < byNode.size(); i++) dependents.add(new ArrayList<Integer>());
+            int[] pending = new int[byNode.size()];
+            for (OptionConstraint constraint : constraints) {
+                int subject = nodes.get(constraint.subject());
+                for (Option dependency : constraint.dependencies()) {
+                    dependents.get(nodes.get(dependency)).add(subject);
+                    pending[subject]++;
+                }
+            }
+
+            int[] rank = new int[byNode.size()];
+            int[] queue = new int[byNode.size()];
+            int head = 0, tail = 0;
+            for (int i = 0; i < pending.length; i++) {
+                if (pending[i] == 0) queue[tail++] = i;
+            }
+            while (head < tail) {
+                int node = queue[head];
+                rank[node] = head++;
+                for (int dependent : dependents.get(node)) {
+                    if (--pending[dependent] == 0) queue[tail++] = dependent;
+                }
+            }
+            if (tail < byNode.size()) {
+                for (int i = 0; i < pending.length; i++) {
+                    if (pending[i] > 0) throw new IllegalArgumentException("constraints on " + byNode.get(i).propertyName() + " form a cycle");
+                }
+            }
+
+            // order the constraints by their subjects, keeping the order in
+            // which they were added for the same subject
+            final int[] ranks = rank;
+            final Map<Option, Integer> subjects = nodes;
+            order = constraints.toArray(new OptionConstraint[constraints.size()]);
+            Arrays.sort(order, new Comparator<OptionConstraint>() {
+                public int compare(OptionConstraint a, OptionConstraint b) {
+                    return Integer.compare(ranks[subjects.get(a.subject())], ranks[subjects.get(b.subject())]);
+                }
+            });
+
+            List<List<Integer>> reading = new ArrayList<List<Integer>>(size);
+            for (int i = 0; i < size; i++) reading.add(null);
+            for (int i = 0; i < order.length; i++) {
+                read(reading, order[i].subject(), i);
+                for (Option dependency : order[i].dependencies()) {
+                    read(reading, dependency, i);
+                }
+            }
+
+            affected = new int[size][];
+            for (int i = 0; i < size; i++) {
+                List<Integer> indices = reading.get(i);
+                if (indices == null) continue;
+
+                affected[i] = new int[indices.size()];
+                for (int j = 0; j < affected[i].length; j++) affected[i][j] = indices.get(j);
+            }
+
+            messages = new String[order.length];
+            dirty = new BitSet(order.length);
+            dirty.set(0, order.length);
+        }
+
+        private static void node(Map<Option, Integer> nodes, List<Option> byNode, Option option) {
+            if (nodes.containsKey(option)) return;
+
+            nodes.put(option, byNode.size());
+            byNode.add(option);
+        }
+
+        private static void read(List<List<Integer>> reading, Option option, int constraint) {
+            List<Integer> indices = reading.get(option.registryIndex());
+            if (indices == null) reading.set(option.registryIndex(), indices = new ArrayList<Integer>(2));
+
+            // a constraint may read the same option more than once
+            if (indices.isEmpty() || indices.get(indices.size() - 1) != constraint) indices.add(constraint);
+        }
+
+        synchronized void changed(int option) {
+            if (option >= affected.length || affected[option] == null) return;
+
+            for (int constraint : affected[option]) {
+                dirty.set(constraint);
+            }
+        }
+
+        synchronized List<OptionViolation> violations() {
+            // checking only loads options, which marks nothing; a change made
+            // meanwhile by another thread waits for this lock and marks its
+            // constraints for the next call
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                dirty.clear(i);
+                messages[i] = order[i].check();
+            }
+
+            List<OptionViolation> violations = new ArrayList<OptionViolation>();
+            for (int i = 0; i < order.length; i++) {
+                if (messages[i] != null) violations.add(new OptionViolation(order[i], messages[i]));
+            }
+
+            return Collections.unmodifiableList(violations);
+        }
+
+        final OptionConstraint[] order;
+        private final int[][] affected;
+        private final String[] messages;
+        private final BitSet dirty;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * The properties resolved for each registered option from a snapshot of
+     * each source, with the index of the source that supplied each one.
+     */
+    static final class Resolution {
+        Resolution(OptionSource[] sources, Map<String, String>[] layers, int size) {
+            this(sources, layers, new String[size], new int[size]);
+            Arrays.fill(origins, -1);
+        }
+
+        private Resolution(OptionSource[] sources, Map<String, String>[] layers, String[] values, int[] origins) {
+            this.sources = sources;
+            this.layers = layers;
+            this.values = values;
+            this.origins = origins;
+        }
+
+        void resolve(int index, String name) {
+            for (int i = 0; i < layers.length; i++) {
+                String value = layers[i].get(name);
+                if (value != null) {
+                    values[index] = value;
+                    origins[index] = i;
+                    return;
+                }
+            }
+
+            values[index] = null;
+            origins[index] = -1;
+        }
+
+        void set(int index, String value, int origin) {
+            values[index] = value;
+            origins[index] = origin;
+        }
+
+        int indexOf(OptionSource source) {
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] == source) return i;
+            }
+            return -1;
+        }
+
+        Resolution withSize(int size) {
+            return new Resolution(sources, layers, Arrays.copyOf(values, size), Arrays.copyOf(origins, size));
+        }
+
+        Resolution withLayer(int index, Map<String, String> layer) {
+            Map<String, String>[] layers = this.layers.clone();
+            layers[index] = layer;
+            return new Resolution(sources, layers, values.clone(), origins.clone());
+        }
+
+        final OptionSource[] sources;
+        final Map<String, String>[] layers;
+        final String[] values;
+        final int[] origins;
+    }
+
+    private final ArrayList<Option> options = new ArrayList<Option>();
+    private Map<String, Option> byName = new HashMap<String, Option>();
+    private List<OptionSource> sources = Collections.singletonList(OptionSource.systemProperties());
+    private OptionIndex index;
+    private SortedOptions sorted;
+    private GeneratedOptions generated;
+    private ArgumentParser parser;
+    private volatile Resolution resolution;
+    private volatile OptionValues values;
+    private volatile long modifications;
+    private volatile Constraints constraints;
+    private final CopyOnWriteArrayList<Dispatcher> dispatchers = new CopyOnWriteArrayList<Dispatcher>();
+    private final AtomicInteger batching = new AtomicInteger();
+
+    private static final AtomicLongFieldUpdater<OptionRegistry> MODIFICATIONS =
+            AtomicLongFieldUpdater.newUpdater(OptionRegistry.class, "modifications");
+
+    private static final AtomicReferenceFieldUpdater<OptionRegistry, OptionValues> VALUES =
+            AtomicReferenceFieldUpdater.newUpdater(OptionRegistry.class, OptionValues.class, "values");
+}
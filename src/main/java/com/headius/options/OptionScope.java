@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Arrays;
+
+/**
+ * A set of option overrides visible only to the current thread until the
+ * scope is closed, for giving one request, tenant or test its own settings
+ * without disturbing other threads.
+ *
+ * <pre>
+ * try (OptionScope scope = Option.scope().with(timeout, "5s").with(mode, "FAST")) {
+ *     // timeout.load() and mode.load() see the overrides on this thread only
+ * }
+ * </pre>
+ *
+ * A scope is entered when created and must be closed, in reverse order of
+ * creation, on the thread that created it. Scopes nest: an inner scope's
+ * overrides take precedence over an outer scope's, which in turn take
+ * precedence over forced values and properties. Each overridden value is
+ * parsed once, on first load within the scope.
+ *
+ * Options count the scopes overriding them across all threads, so loading an
+ * option that no scope overrides costs a single extra read. Scoped values
+ * are not seen by {@link Option#asConstantHandle()}, produce no change
+ * events, and do not affect {@link Option#isSpecified()} or {@link Option#error()}.
+ *
+ * Scopes are held in a ThreadLocal, which works the same on platform and
+ * virtual threads; since a scope must be closed where it was opened, they
+ * are not inherited by threads the scope's thread starts.
+ */
+public final class OptionScope implements AutoCloseable {
+    OptionScope() {
+        this.thread = Thread.currentThread();
+        this.parent = CURRENT.get();
+        CURRENT.set(this);
+    }
+
+    /**
+     * Override the given option for this scope.
+     *
+     * @param option the option to override
+     * @param value the property value to use, as if set in the JVM
+     * @param <T> the type of the option's value
+     * @return this scope
+     * @throws IllegalStateException if called from another thread or after the scope is closed
+     */
+    public <T> OptionScope with(Option<T> option, String value) {
+        checkOpen();
+
+        for (int i = 0; i < size; i++) {
+            if (options[i] == option) {
+                properties[i] = value;
+                values[i] = UNPARSED;
+                return this;
+            }
+        }
+
+        if (size == options.length) {
+            int capacity = Math.max(4, size * 2);
+            options = Arrays.copyOf(options, capacity);
+            properties = Arrays.copyOf(properties, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        options[size] = option;
+        properties[size] = value;
+        values[size] = UNPARSED;
+        size++;
+
+        option.enterScope();
+
+        return this;
+    }
+
+    /**
+     * Leave this scope, restoring the overrides of the scope that was current
+     * when it was created.
+     *
+     * @throws IllegalStateException if called from another thread or out of order
+     */
+    public void close() {
+        if (closed) return;
+
+        checkOpen();
+        if (CURRENT.get() != this) throw new IllegalStateException("scope closed out of order");
+
+        closed = true;
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+
+        for (int i = 0; i < size; i++) {
+            options[i].exitScope();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("scope is closed");
+        if (Thread.currentThread() != thread) throw new IllegalStateException("scope belongs to " + thread);
+    }
+
+    /**
+     * Find the current thread's override of the given option, parsing it on
+     * first use.
+     *
+     * @return the overridden value, or {@link #UNSET} if no scope on this
+     *         thread overrides the option
+     */
+    static Object valueOf(Option<?> option) {
+        for (OptionScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            for (int i = 0; i < scope.size; i++) {
+                if (scope.options[i] != option) continue;
+
+                Object value = scope.values[i];
+                if (value == UNPARSED) scope.values[i] = value = option.parse(scope.properties[i]).value;
+
+                return value;
+            }
+        }
+        return UNSET;
+    }
+
+    /**
+     * Returned by {@link #valueOf(Option)} when an option is not overridden.
+     */
+    static final Object UNSET = new Object();
+
+    private static final Object UNPARSED = new Object();
+
+    private static final ThreadLocal<OptionScope> CURRENT = new ThreadLocal<OptionScope>();
+
+    private final Thread thread;
+    private final OptionScope parent;
+    private Option<?>[] options = new Option<?>[0];
+    private String[] properties = new String[0];
+    private Object[] values = new Object[0];
+    private int size;
+    private boolean closed;
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A layer of configuration from which an {@link OptionRegistry} resolves its
+ * options' properties, such as system properties, environment variables, or a
+ * properties file.
+ *
+ * A registry consults its sources in order, and the first source providing a
+ * property supplies it; a forced value overrides all sources, and an option's
+ * default applies when no source provides its property. Each source's
+ * properties are read once per {@link OptionRegistry#load()} or
+ * {@link OptionRegistry#refresh(OptionSource)}, and are kept by the registry
+ * until the next.
+ *
+ * @see OptionRegistry#sources(OptionSource...)
+ */
+public interface OptionSource {
+    /**
+     * @return a short name for this source, reported as the origin of the values it supplies
+     */
+    String name();
+
+    /**
+     * Take a snapshot of this source's properties.
+     *
+     * @return a map of property names to values
+     */
+    Map<String, String> properties();
+
+    /**
+     * Take a snapshot of this source's properties for a registry holding the
+     * given options. A source whose names do not spell property names
+     * exactly, such as environment variables, can use the options to match
+     * them; by default this is {@link #properties()}.
+     *
+     * @param options the registered options
+     * @return a map of property names to values
+     */
+    default Map<String, String> properties(OptionIndex options) {
+        return properties();
+    }
+
+    /**
+     * @return a source that snapshots the system properties, named "system"
+     * @see SystemPropertiesSource
+     */
+    static OptionSource systemProperties() {
+        return new SystemPropertiesSource();
+    }
+
+    /**
+     * @param prefix the property prefix, such as "config", whose variables,
+     *               such as CONFIG_NAME, are supplied
+     * @return a source that maps the environment variables under the prefix
+     *         to properties, named "environment"
+     * @see EnvironmentSource
+     */
+    static OptionSource environment(String prefix) {
+        return new EnvironmentSource(prefix);
+    }
+
+    /**
+     * @param registry the registry whose options are supplied
+     * @return a source that supplies the registry's options from environment
+     *         variables with their conventional names, named "environment"
+     * @see EnvironmentSource#variableName(String)
+     */
+    static OptionSource environment(OptionRegistry registry) {
+        return new EnvironmentSource(registry);
+    }
+
+    /**
+     * Create a source with fixed properties.
+     *
+     * @param name the name of the source
+     * @param properties the properties, which are copied
+     * @return a source supplying the given properties
+     */
+    static OptionSource fromMap(final String name, Map<String, String> properties) {
+        final Map<String, String> copy = Collections.unmodifiableMap(new HashMap<String, String>(properties));
+
+        return new OptionSource() {
+            public String name() {
+                return name;
+            }
+
+            public Map<String, String> properties() {
+                return copy;
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Arrays;
+
+/**
+ * A set of changes to options in an {@link OptionRegistry}, staged and then
+ * applied together.
+ *
+ * <pre>
+ * registry.transaction()
+ *         .force(timeout, "true")
+ *         .force(timeoutSecs, "60")
+ *         .commit();
+ * </pre>
+ *
+ * On commit, every forced value is parsed first, so a value that cannot be
+ * forced leaves all of the options unchanged. The options are then forced or
+ * unforced under the registry's lock and the new values are published to
+ * {@link OptionRegistry#values()} in a single swap, so readers of the
+ * registry's values see either none of the changes or all of them. Reading
+ * the options individually with {@link Option#load()} sees each option's new
+ * value as soon as it is applied. Listeners are notified in a single batch
+ * after the lock is released.
+ */
+public final class OptionTransaction {
+    OptionTransaction(OptionRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Stage forcing the given option to a value.
+     *
+     * @param option a registered option
+     * @param value the value to force, as if set in the JVM
+     * @return this transaction
+     */
+    public OptionTransaction force(Option<?> option, String value) {
+        if (value == null) throw new NullPointerException("value");
+
+        return stage(option, value);
+    }
+
+    /**
+     * Stage undoing any forced value of the given option.
+     *
+     * @param option a registered option
+     * @return this transaction
+     */
+    public OptionTransaction unforce(Option<?> option) {
+        return stage(option, null);
+    }
+
+    /**
+     * Apply the staged changes together.
+     *
+     * @throws IllegalArgumentException if a staged option is not registered with the registry
+     * @throws UnsupportedOperationException if a staged option cannot be forced, as with a {@link DerivedOption}
+     * @throws IllegalStateException if the transaction has already been committed
+     */
+    public void commit() {
+        if (committed) throw new IllegalStateException("transaction already committed");
+        committed = true;
+
+        registry.commit(Arrays.copyOf(options, size), Arrays.copyOf(values, size));
+    }
+
+    private OptionTransaction stage(Option<?> option, String value) {
+        if (committed) throw new IllegalStateException("transaction already committed");
+
+        // a later change to the same option replaces the earlier one
+        for (int i = 0; i < size; i++) {
+            if (options[i] == option) {
+                values[i] = value;
+                return this;
+            }
+        }
+
+        if (size == options.length) {
+            options = Arrays.copyOf(options, Math.max(4, size * 2));
+            values = Arrays.copyOf(values, options.length);
+        }
+        options[size] = option;
+        values[size] = value;
+        size++;
+
+        return this;
+    }
+
+    private final OptionRegistry registry;
+    private Option[] options = new Option[0];
+    private String[] values = new String[0];
+    private int size;
+    private boolean committed;
+}
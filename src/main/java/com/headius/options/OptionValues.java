@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * An immutable snapshot of the values of all the options in an
+ * {@link OptionRegistry}, taken by {@link OptionRegistry#values()}.
+ *
+ * All values read from one snapshot are consistent with each other: options
+ * changed together by an {@link OptionTransaction} are either all old or all
+ * new. Reading a value is an array access by the option's registry index.
+ */
+public final class OptionValues {
+    OptionValues(Option[] options, Object[] values) {
+        this.options = options;
+        this.values = values;
+    }
+
+    /**
+     * @param option a registered option
+     * @param <T> the type of the option's value
+     * @return the option's value in this snapshot
+     * @throws IllegalArgumentException if the option was not registered when the snapshot was taken
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Option<T> option) {
+        int index = option.registryIndex();
+        if (index >= options.length || options[index] != option) {
+            throw new IllegalArgumentException("option " + option.propertyName() + " is not in this snapshot");
+        }
+
+        return (T) values[index];
+    }
+
+    /**
+     * @return the number of options in this snapshot
+     */
+    public int size() {
+        return options.length;
+    }
+
+    private final Option[] options;
+    private final Object[] values;
+}
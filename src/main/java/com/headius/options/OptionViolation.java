@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A failed {@link OptionConstraint}, as reported by
+ * {@link OptionRegistry#violations()}.
+ */
+public final class OptionViolation {
+    OptionViolation(OptionConstraint constraint, String message) {
+        this.constraint = constraint;
+        this.message = message;
+    }
+
+    /**
+     * @return the constraint that failed
+     */
+    public OptionConstraint constraint() {
+        return constraint;
+    }
+
+    /**
+     * @return the option the failed constraint applies to
+     */
+    public Option<?> option() {
+        return constraint.subject();
+    }
+
+    /**
+     * @return a description of the violation
+     */
+    public String message() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+
+    private final OptionConstraint constraint;
+    private final String message;
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Option properties read from a .properties file, such as one produced by
+ * {@link Option#formatOptions}, optionally watched for changes.
+ *
+ * The file is read through a {@link FileChannel} in chunks of at most 64KB,
+ * each decoded straight into the character array that is then parsed in a
+ * single scan; no mapping or other handle on the file is kept once it has
+ * been read. Quoted values written by
+ * {@link Option#formatOptions} are unquoted. While watching, each change to the
+ * file is re-parsed and only the properties that differ from the previous
+ * version are applied to the registry, through {@link OptionRegistry#refresh(OptionSource)}.
+ * Since a partially-written file is applied as it is read, writers should
+ * replace the file atomically, by writing a new file and renaming it. A
+ * change that cannot be read or parsed, or that a listener fails to apply, is
+ * reported to the watching thread's uncaught exception handler, and watching
+ * continues.
+ */
+public class PropertiesFileSource implements OptionSource, Closeable {
+    /**
+     * Create a source for the given UTF-8 properties file. The file is not read
+     * until {@link #properties()} or {@link #reload()} is called.
+     *
+     * @param file the path of the properties file
+     */
+    public PropertiesFileSource(Path file) {
+        this(file, UTF8);
+    }
+
+    /**
+     * Create a source for the given properties file and encoding. The file is
+     * not read until {@link #properties()} or {@link #reload()} is called.
+     *
+     * @param file the path of the properties file
+     * @param charset the encoding of the file
+     */
+    public PropertiesFileSource(Path file, Charset charset) {
+        this.file = file.toAbsolutePath();
+        this.charset = charset;
+    }
+
+    /**
+     * @return the path of the properties file
+     */
+    public Path path() {
+        return file;
+    }
+
+    /**
+     * @return the path of the properties file, as a string
+     */
+    public String name() {
+        return file.toString();
+    }
+
+    /**
+     * @return the properties most recently read from the file, reading it if it has not been already
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains a malformed unicode escape
+     */
+    public Map<String, String> properties() {
+        Map<String, String> properties = this.properties;
+        if (properties != null) return properties;
+
+        synchronized (this) {
+            if (this.properties == null) {
+                try {
+                    this.properties = readProperties();
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            }
+
+            return this.properties;
+        }
+    }
+
+    /**
+     * Re-read the file, replacing the current properties in a single swap. A
+     * missing file has no properties.
+     *
+     * @return the properties that changed, mapped to their new values or to
+     *         null if they were removed
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains a malformed unicode escape
+     */
+    public synchronized Map<String, String> reload() throws IOException {
+        Map<String, String> previous = this.properties;
+        Map<String, String> current = readProperties();
+
+        this.properties = current;
+
+        return changes(previous == null ? Collections.<String, String>emptyMap() : previous, current);
+    }
+
+    private Map<String, String> readProperties() throws IOException {
+        try {
+            return Collections.unmodifiableMap(parse(read(file, charset)));
+        } catch (NoSuchFileException nsfe) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Watch the file for changes on a daemon thread, refreshing this source in
+     * the given registry as the file changes until this source is closed. This
+     * source should be one of the registry's {@link OptionRegistry#sources()}.
+     *
+     * @param registry the registry to refresh
+     * @throws IOException if the file cannot be watched
+     */
+    public synchronized void watch(final OptionRegistry registry) throws IOException {
+        if (watcher != null) throw new IllegalStateException("already watching " + file);
+
+        final WatchService service = file.getFileSystem().newWatchService();
+        file.getParent().register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (true) {
+                        WatchKey key = service.take();
+
+                        boolean changed = false;
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            if (event.kind() == OVERFLOW || file.getFileName().equals(event.context())) changed = true;
+                        }
+                        key.reset();
+
+                        if (changed) {
+                            try {
+                                refresh(registry);
+                            } catch (RuntimeException re) {
+                                // report and keep watching, rather than letting one bad change stop all reloads
+                                Thread thread = Thread.currentThread();
+                                thread.getUncaughtExceptionHandler().uncaughtException(thread, re);
+                            }
+                        }
+                    }
+                } catch (InterruptedException ie) {
+                    // closed
+                } catch (ClosedWatchServiceException cwse) {
+                    // closed
+                }
+            }
+        }, "options-watcher-" + file.getFileName());
+        thread.setDaemon(true);
+
+        watcher = service;
+        thread.start();
+    }
+
+    private void refresh(OptionRegistry registry) {
+        Map<String, String> changes;
+        try {
+            changes = reload();
+        } catch (IOException ioe) {
+            // likely caught mid-write; keep the current properties until the next change
+            return;
+        }
+
+        if (!changes.isEmpty()) registry.refresh(this);
+    }
+
+    /**
+     * Stop watching the file for changes.
+     *
+     * @throws IOException if the underlying watch service cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        WatchService watcher = this.watcher;
+        if (watcher == null) return;
+
+        this.watcher = null;
+        watcher.close();
+    }
+
+    /**
+     * Read and decode the whole file a chunk at a time, into a character
+     * buffer sized for the file up front, so the bytes are never held whole.
+     */
+    static CharBuffer read(Path file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+            long size = channel.size();
+            ByteBuffer bytes = ByteBuffer.allocate((int) Math.max(16, Math.min(size, CHUNK_SIZE)));
+            CharBuffer chars = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 16, (long) (size * (double) decoder.averageCharsPerByte())) + 16);
+
+            boolean eof = false;
+            while (!eof) {
+                eof = channel.read(bytes) < 0;
+                bytes.flip();
+                while (decoder.decode(bytes, chars, eof).isOverflow()) chars = grow(chars);
+                bytes.compact();
+            }
+            while (decoder.flush(chars).isOverflow()) chars = grow(chars);
+
+            chars.flip();
+            return chars;
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static CharBuffer grow(CharBuffer chars) {
+        chars.flip();
+        return CharBuffer.allocate(chars.capacity() * 2).put(chars);
+    }
+
+    /**
+     * Parse properties in the java.util.Properties line format in a single
+     * scan, additionally unquoting values quoted by {@link Option#formatOptions}.
+     */
+    static Map<String, String> parse(CharSequence text) {
+        return parse(CharBuffer.wrap(text.toString().toCharArray()));
+    }
+
+    static Map<String, String> parse(CharBuffer text) {
+        return new Parser(text).parse();
+    }
+
+    /**
+     * A single-pass scanner over decoded file contents. Keys and values without
+     * escapes are sliced directly from the char array rather than copied
+     * through a buffer.
+     */
+    private static final class Parser {
+        Parser(CharBuffer text) {
+            if (!text.hasArray()) text = CharBuffer.wrap(text.toString().toCharArray());
+
+            this.chars = text.array();
+            this.position = text.arrayOffset() + text.position();
+            this.end = text.arrayOffset() + text.limit();
+        }
+
+        Map<String, String> parse() {
+            Map<String, String> properties = new HashMap<String, String>();
+
+            skipWhitespace();
+            while (position < end) {
+                char c = chars[position];
+
+                if (c == '#' || c == '!') {
+                    skipLine();
+                } else {
+                    readEntry(properties);
+                }
+
+                skipWhitespace();
+            }
+
+            return properties;
+        }
+
+        private void readEntry(Map<String, String> properties) {
+            String key = readElement(true);
+
+            skipBlanks();
+            if (position < end && (chars[position] == '=' || chars[position] == ':')) {
+                position++;
+                skipBlanks();
+            }
+
+            boolean quoted = position < end && chars[position] == '"';
+            String value = readElement(false);
+
+            int last = value.length() - 1;
+            if (quoted && last > 0 && value.charAt(last) == '"' && hasWhitespace(value, 1, last)) {
+                value = value.substring(1, last);
+            }
+
+            properties.put(key, value);
+        }
+
+        /**
+         * Read a key or value, handling escapes and line continuations.
+         */
+        private String readElement(boolean key) {
+            int start = position;
+
+            // fast path: no escapes, so the element is a slice of the array
+            while (position < end) {
+                char c = chars[position];
+                if (c == '\\' || c == '\n' || c == '\r') break;
+                if (key && (c == '=' || c == ':' || c == ' ' || c == '\t' || c == '\f')) break;
+                position++;
+            }
+
+            if (position == end || chars[position] != '\\') return new String(chars, start, position - start);
+
+            buffer.setLength(0);
+            buffer.append(chars, start, position - start);
+
+            while (position < end) {
+                char c = chars[position];
+
+                if (c == '\n' || c == '\r') break;
+                if (key && (c == '=' || c == ':' || c == ' ' || c == '\t' || c == '\f')) break;
+
+                position++;
+                if (c != '\\') {
+                    buffer.append(c);
+                } else if (position < end) {
+                    readEscape();
+                }
+            }
+
+            return buffer.toString();
+        }
+
+        private void readEscape() {
+            char c = chars[position++];
+
+            switch (c) {
+                case 't': buffer.append('\t'); break;
+                case 'n': buffer.append('\n'); break;
+                case 'r': buffer.append('\r'); break;
+                case 'f': buffer.append('\f'); break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = position < end ? Character.digit(chars[position++], 16) : -1;
+                        if (digit < 0) throw new IllegalArgumentException("malformed \\uxxxx escape");
+                        code = (code << 4) | digit;
+                    }
+                    buffer.append((char) code);
+                    break;
+                case '\r':
+                    if (position < end && chars[position] == '\n') position++;
+                    skipBlanks();
+                    break;
+                case '\n':
+                    skipBlanks();
+                    break;
+                default:
+                    buffer.append(c);
+                    break;
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < end) {
+                char c = chars[position];
+                if (c != ' ' && c != '\t' && c != '\f' && c != '\r' && c != '\n') break;
+                position++;
+            }
+        }
+
+        private void skipLine() {
+            while (position < end) {
+                char c = chars[position];
+                if (c == '\n' || c == '\r') break;
+                position++;
+            }
+        }
+
+        private void skipBlanks() {
+            while (position < end) {
+                char c = chars[position];
+                if (c != ' ' && c != '\t' && c != '\f') break;
+                position++;
+            }
+        }
+
+        private static boolean hasWhitespace(String text, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (Character.isWhitespace(text.charAt(i))) return true;
+            }
+            return false;
+        }
+
+        private final char[] chars;
+        private final int end;
+        private int position;
+        private final StringBuilder buffer = new StringBuilder();
+    }
+
+    /**
+     * @return the entries that differ between the two maps, with removed entries mapped to null
+     */
+    static Map<String, String> changes(Map<String, String> previous, Map<String, String> current) {
+        Map<String, String> changes = new HashMap<String, String>();
+
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) changes.put(entry.getKey(), entry.getValue());
+        }
+        for (String name : previous.keySet()) {
+            if (!current.containsKey(name)) changes.put(name, null);
+        }
+
+        return changes;
+    }
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final long CHUNK_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final Charset charset;
+    private volatile Map<String, String> properties;
+    private WatchService watcher;
+}
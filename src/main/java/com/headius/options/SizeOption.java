@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+/**
+ * A size Option, held as a primitive long number of bytes.
+ *
+ * The value may end with a size suffix, k, m, g or t for powers of 1024,
+ * optionally followed by b, so "64k" is 65536. A value that cannot be parsed
+ * or is negative is rejected in favor of the default, and reported by
+ * {@link #error()}.
+ */
+public class SizeOption extends LongOption {
+    public SizeOption(String prefix, String shortName, Enum category, long defval, String description) {
+        super(prefix, shortName, category, defval, description);
+    }
+
+    public SizeOption(String longName, Enum category, long defval, String description) {
+        super(longName, category, defval, description);
+    }
+
+    protected Long reloadValue() {
+        String value = super.loadProperty();
+
+        if (value == null) {
+            return defval;
+        }
+
+        long size;
+        try {
+            size = NumberParser.parse(value, NumberParser.SIZE);
+        } catch (NumberFormatException nfe) {
+            return invalid(value, nfe.getMessage());
+        }
+
+        if (size < 0) return invalid(value, "negative size");
+
+        return size;
+    }
+}
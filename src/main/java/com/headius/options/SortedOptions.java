@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable view of a set of options, sorted once by category and then by
+ * display name, and grouped by category.
+ *
+ * This is the order in which {@link Option#formatOptions} and
+ * {@link Option#formatValues} print options, so formatting a SortedOptions
+ * repeatedly does not re-sort it.
+ *
+ * @see OptionRegistry#sorted()
+ */
+public final class SortedOptions implements Iterable<Option> {
+    /**
+     * Sort and group the given options.
+     *
+     * @param options the options to sort
+     */
+    @SuppressWarnings("unchecked")
+    public SortedOptions(Collection<? extends Option> options) {
+        Option[] sorted = options.toArray(new Option[options.size()]);
+        Arrays.sort(sorted, OptionComparator);
+
+        Map<Enum, List<Option>> byCategory = Collections.emptyMap();
+        if (sorted.length > 0) {
+            byCategory = new EnumMap(sorted[0].category().getDeclaringClass());
+
+            List<Option> all = Arrays.asList(sorted);
+            int start = 0;
+            for (int i = 1; i <= sorted.length; i++) {
+                if (i == sorted.length || sorted[i].category() != sorted[start].category()) {
+                    byCategory.put(sorted[start].category(), Collections.unmodifiableList(all.subList(start, i)));
+                    start = i;
+                }
+            }
+        }
+
+        this.options = Collections.unmodifiableList(Arrays.asList(sorted));
+        this.byCategory = Collections.unmodifiableMap(byCategory);
+    }
+
+    /**
+     * @return all options, sorted by category and then display name
+     */
+    public List<Option> options() {
+        return options;
+    }
+
+    /**
+     * @return the categories that contain options, in order
+     */
+    public Set<Enum> categories() {
+        return byCategory.keySet();
+    }
+
+    /**
+     * Get the options in the given category.
+     *
+     * @param category the category
+     * @return the options in the category sorted by display name, or an empty list if there are none
+     */
+    public List<Option> get(Enum category) {
+        List<Option> options = byCategory.get(category);
+
+        return options == null ? Collections.<Option>emptyList() : options;
+    }
+
+    /**
+     * @return the options grouped by category, with categories and options in order
+     */
+    public Map<Enum, List<Option>> byCategory() {
+        return byCategory;
+    }
+
+    /**
+     * @return the number of options
+     */
+    public int size() {
+        return options.size();
+    }
+
+    public Iterator<Option> iterator() {
+        return options.iterator();
+    }
+
+    private static final Comparator<Option> OptionComparator = new Comparator<Option>() {
+        public int compare(Option o1, Option o2) {
+            int catComp = Integer.compare(o1.category().ordinal(), o2.category().ordinal());
+            if (catComp != 0) return catComp;
+            return o1.displayName().compareTo(o2.displayName());
+        }
+    };
+
+    private final List<Option> options;
+    private final Map<Enum, List<Option>> byCategory;
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * An option source supplying the system properties.
+ *
+ * Each snapshot copies the system properties in a single pass, rather than
+ * looking up each property individually.
+ */
+public class SystemPropertiesSource implements OptionSource {
+    public String name() {
+        return "system";
+    }
+
+    public Map<String, String> properties() {
+        Properties system;
+        try {
+            system = (Properties) System.getProperties().clone();
+        } catch (SecurityException se) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> snapshot = new HashMap<String, String>(system.size() * 2);
+        for (Map.Entry<Object, Object> entry : system.entrySet()) {
+            if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+                snapshot.put((String) entry.getKey(), (String) entry.getValue());
+            }
+        }
+
+        return snapshot;
+    }
+}
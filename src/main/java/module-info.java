@@ -16,6 +16,8 @@
 
 module com.headius.options {
     requires java.base;
+    requires static java.management;
+    requires static jdk.jfr;
 
     exports com.headius.options;
 }
\ No newline at end of file
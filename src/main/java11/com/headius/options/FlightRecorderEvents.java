@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder events behind {@link OptionEvents}, compiled for Java 11
+ * and loaded only through it.
+ *
+ * Each event's type is looked up once, so that no event is allocated unless
+ * a recording has enabled it.
+ */
+final class FlightRecorderEvents extends OptionEvents.Recorder {
+    Object beginLoad() {
+        if (!LOAD.isEnabled()) return null;
+
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        return event;
+    }
+
+    void endLoad(Object started, Option<?> option, Object value) {
+        LoadEvent event = (LoadEvent) started;
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.option = option.propertyName();
+        event.value = value == null ? null : Option.property(option, value);
+        event.origin = option.origin();
+        event.commit();
+    }
+
+    void forced(Option<?> option, String value) {
+        if (!FORCE.isEnabled()) return;
+
+        ForceEvent event = new ForceEvent();
+        if (!event.shouldCommit()) return;
+
+        event.option = option.propertyName();
+        event.value = value;
+        event.commit();
+    }
+
+    void rejected(Option<?> option, String value, String reason) {
+        if (!ERROR.isEnabled()) return;
+
+        ErrorEvent event = new ErrorEvent();
+        if (!event.shouldCommit()) return;
+
+        event.option = option.propertyName();
+        event.value = value;
+        event.reason = reason;
+        event.commit();
+    }
+
+    @Name("com.headius.options.Load")
+    @Label("Option Load")
+    @Category("Options")
+    @Description("An option's property was read and parsed")
+    static final class LoadEvent extends Event {
+        @Label("Option")
+        String option;
+
+        @Label("Value")
+        String value;
+
+        @Label("Origin")
+        @Description("Where the value came from: forced, a source name, or default")
+        String origin;
+    }
+
+    @Name("com.headius.options.Force")
+    @Label("Option Force")
+    @Category("Options")
+    @Description("An option was forced to a value, or unforced")
+    static final class ForceEvent extends Event {
+        @Label("Option")
+        String option;
+
+        @Label("Value")
+        @Description("The forced value, or null if the option was unforced")
+        String value;
+    }
+
+    @Name("com.headius.options.Error")
+    @Label("Option Error")
+    @Category("Options")
+    @Description("An option's property was rejected and the default used instead")
+    static final class ErrorEvent extends Event {
+        @Label("Option")
+        String option;
+
+        @Label("Value")
+        String value;
+
+        @Label("Reason")
+        String reason;
+    }
+
+    private static final EventType LOAD = EventType.getEventType(LoadEvent.class);
+    private static final EventType FORCE = EventType.getEventType(ForceEvent.class);
+    private static final EventType ERROR = EventType.getEventType(ErrorEvent.class);
+}
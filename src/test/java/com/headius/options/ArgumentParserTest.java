@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ArgumentParserTest {
+    enum Category { TEST }
+    enum Speed { SLOW, FAST }
+
+    private static OptionRegistry registry() {
+        return new OptionRegistry(
+                Option.integer("args", "timeoutSecs", Category.TEST, 30, "timeout"),
+                Option.bool("args", "verbose", Category.TEST, false, "verbose"),
+                Option.enumeration("args", "speed", Category.TEST, Speed.values(), Speed.SLOW, "speed"),
+                Option.string("args", "name", Category.TEST, "name"),
+                Option.string("other", "name", Category.TEST, "other name"));
+    }
+
+    @Test
+    public void testForms() throws Exception {
+        OptionRegistry registry = registry();
+        OptionArguments arguments = registry.parseArguments(
+                "--args.timeoutSecs=60", "--verbose", "-Xspeed=fast", "input.txt", "--args.name", "bob", "--", "--not-an-option");
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("args.timeoutSecs", "60");
+        expected.put("args.verbose", "");
+        expected.put("args.speed", "fast");
+        expected.put("args.name", "bob");
+        assertEquals(expected, arguments.properties());
+        assertEquals(Arrays.asList("input.txt", "--not-an-option"), arguments.remaining());
+        assertTrue(arguments.errors().isEmpty());
+
+        registry.sources(arguments.source(), OptionSource.systemProperties());
+        registry.load();
+        assertEquals(60, (int) registry.<Integer>get("args.timeoutSecs").load());
+        assertEquals(true, registry.get("args.verbose").load());
+        assertEquals(Speed.FAST, registry.get("args.speed").load());
+        assertEquals("arguments", registry.get("args.speed").origin());
+
+        arguments = registry.parseArguments("--verbose", "--no-verbose", "-Dargs.timeoutSecs=5", "-DtimeoutSecs=10");
+        assertEquals("false", arguments.properties().get("args.verbose"));
+        assertEquals("10", arguments.properties().get("args.timeoutSecs"));
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        OptionArguments arguments = registry().parseArguments(
+                "--timeoutSec=5", "--speed=medium", "--speed=fsat", "--name=x", "-XtimeoutSecs", "--zzzzzzzz", "--timeoutSecs");
+
+        assertEquals(Arrays.asList(
+                "unknown option --timeoutSec; did you mean --timeoutSecs?",
+                "invalid value medium for option --speed; expected one of [SLOW, FAST]",
+                "invalid value fsat for option --speed; did you mean FAST?",
+                "ambiguous option --name; use its full name, one of [args.name, other.name]",
+                "missing value for option -XtimeoutSecs",
+                "unknown option --zzzzzzzz",
+                "missing value for option --timeoutSecs"),
+                arguments.errors());
+        assertTrue(arguments.properties().isEmpty());
+    }
+
+    @Test
+    public void testSystemProperties() throws Exception {
+        OptionArguments arguments = registry().parseArguments(
+                "-Dargstest.unregistered=bar", "-Dargs.timeoutSecs=5", "-Djava.awt.headless", "-Dargs.timeotSecs=5", "-Xfoo=bar");
+
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("argstest.unregistered", "bar");
+        expected.put("java.awt.headless", "");
+        assertEquals(expected, arguments.systemProperties());
+        assertEquals(Collections.singletonMap("args.timeoutSecs", "5"), arguments.properties());
+
+        // a name under an option's prefix is more likely a mistyped option
+        assertEquals(Arrays.asList(
+                "unknown option -Dargs.timeotSecs; did you mean -Dargs.timeoutSecs?",
+                "unknown option -Xfoo"),
+                arguments.errors());
+
+        try {
+            arguments.setSystemProperties();
+            assertEquals("bar", System.getProperty("argstest.unregistered"));
+        } finally {
+            System.clearProperty("argstest.unregistered");
+        }
+    }
+
+    @Test
+    public void testManyArguments() throws Exception {
+        String[] args = new String[10000];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = i % 2 == 0 ? "--args.timeoutSecs=" + i : "file" + i;
+        }
+
+        OptionArguments arguments = registry().parseArguments(args);
+        assertEquals(String.valueOf(args.length - 2), arguments.properties().get("args.timeoutSecs"));
+        assertEquals(args.length / 2, arguments.remaining().size());
+    }
+}
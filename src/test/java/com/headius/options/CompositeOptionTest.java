@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CompositeOptionTest {
+    enum Category { TEST }
+
+    @Test
+    public void testList() throws Exception {
+        ListOption<String> hosts = Option.listOption("composite.test.hosts", Category.TEST, ElementParser.STRING, Arrays.asList("localhost:80"), "hosts");
+
+        assertEquals(Arrays.asList("localhost:80"), hosts.load());
+
+        hosts.force(" a:1 , b:2,c:3 ");
+        List<String> loaded = hosts.load();
+        assertEquals(Arrays.asList("a:1", "b:2", "c:3"), loaded);
+        assertSame(loaded, hosts.load());
+
+        try {
+            loaded.add("d:4");
+            fail("list is mutable");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+
+        hosts.force("");
+        assertEquals(Collections.emptyList(), hosts.load());
+    }
+
+    @Test
+    public void testIntegerList() throws Exception {
+        ListOption<Integer> ports = Option.listOption("composite.test.ports", Category.TEST, ElementParser.INTEGER, Arrays.asList(80), "ports");
+
+        ports.force("80,0x1bb,8_080,1,2,3,4,5,6");
+        assertEquals(Arrays.asList(80, 443, 8080, 1, 2, 3, 4, 5, 6), ports.load());
+
+        ports.force("80,http");
+        assertEquals(Arrays.asList(80), ports.load());
+        assertEquals("80,http", ports.error().value());
+    }
+
+    @Test
+    public void testMap() throws Exception {
+        MapOption<String, Integer> weights = Option.mapOption("composite.test.weights", Category.TEST, ElementParser.STRING, ElementParser.INTEGER, null, "weights");
+
+        weights.force("a=1;b=3");
+        Map<String, Integer> expected = new LinkedHashMap<String, Integer>();
+        expected.put("a", 1);
+        expected.put("b", 3);
+        assertEquals(expected, weights.load());
+        assertEquals(3, (int) weights.load().get("b"));
+        assertNull(weights.load().get("c"));
+
+        weights.force("a:1, b : 3,");
+        assertEquals(expected, weights.load());
+
+        weights.force("a=1;a=2");
+        assertNull(weights.load());
+        assertTrue(weights.error().reason().contains("duplicate"));
+
+        weights.force("a");
+        assertNull(weights.load());
+        assertNotNull(weights.error());
+    }
+
+    @Test
+    public void testDurationAndSize() throws Exception {
+        DurationOption timeout = Option.durationOption("composite.test.timeout", Category.TEST, TimeUnit.MILLISECONDS, 1000, "timeout");
+        SizeOption buffer = Option.sizeOption("composite.test.buffer", Category.TEST, 8192, "buffer");
+
+        timeout.force("250");
+        assertEquals(250, timeout.loadLong());
+        timeout.force("2s");
+        assertEquals(2000, timeout.loadLong());
+        timeout.force("1500us");
+        assertEquals(1, timeout.loadLong());
+        timeout.force("2 weeks");
+        assertEquals(1000, timeout.loadLong());
+        assertNotNull(timeout.error());
+
+        // hex digits are not taken for a unit suffix
+        timeout.force("0x1F");
+        assertEquals(31, timeout.loadLong());
+        timeout.force("0x1d");
+        assertEquals(29, timeout.loadLong());
+
+        // converted directly to the unit, beyond the range of nanoseconds
+        timeout.force("1000000000d");
+        assertEquals(86400000000000000L, timeout.loadLong());
+        timeout.force("200000000000d");
+        assertEquals(1000, timeout.loadLong());
+        assertTrue(timeout.error().reason().startsWith("out of range"));
+
+        buffer.force("64k");
+        assertEquals(65536, buffer.loadLong());
+        buffer.force("-1");
+        assertEquals(8192, buffer.loadLong());
+        assertEquals("negative size", buffer.error().reason());
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        Map<String, Integer> weights = new LinkedHashMap<String, Integer>();
+        weights.put("a", 1);
+        weights.put("b", 3);
+
+        ListOption<String> hosts = Option.listOption("composite.format.hosts", Category.TEST, ElementParser.STRING, Arrays.asList("a:1", "b:2"), "hosts");
+        MapOption<String, Integer> weighted = Option.mapOption("composite.format.weights", Category.TEST, ElementParser.STRING, ElementParser.INTEGER, weights, "weights");
+
+        String formatted = Option.formatOptions(hosts, weighted);
+        assertTrue(formatted.contains("#composite.format.hosts=a:1,b:2\n"));
+        assertTrue(formatted.contains("#composite.format.weights=a=1;b=3\n"));
+
+        // the formatted defaults parse back to the same values
+        Map<String, String> properties = PropertiesFileSource.parse(formatted.replace("\n#composite", "\ncomposite"));
+        assertEquals(hosts.defaultValue(), ListOption.parse(properties.get("composite.format.hosts"), ElementParser.STRING));
+        assertEquals(weights, MapOption.parse(properties.get("composite.format.weights"), ElementParser.STRING, ElementParser.INTEGER));
+    }
+
+    @Test
+    public void testEscapedSeparators() throws Exception {
+        List<String> elements = Arrays.asList("a,b", " padded ", "back\\slash", "C:\\dir");
+        ListOption<String> list = Option.listOption("composite.escape.list", Category.TEST, ElementParser.STRING, elements, "list");
+
+        String property = Option.property(list, elements);
+        assertEquals("a\\,b,\\ padded\\ ,back\\\\slash,C:\\\\dir", property);
+        assertEquals(elements, ListOption.parse(property, ElementParser.STRING));
+
+        // a backslash before anything else is kept
+        assertEquals(Arrays.asList("C:\\dir"), ListOption.parse("C:\\dir", ElementParser.STRING));
+
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        entries.put("k=1", "a;b");
+        entries.put("host:port", "x,y ");
+        MapOption<String, String> map = Option.mapOption("composite.escape.map", Category.TEST, ElementParser.STRING, ElementParser.STRING, entries, "map");
+
+        property = Option.property(map, entries);
+        assertEquals("k\\=1=a\\;b;host\\:port=x\\,y\\ ", property);
+        assertEquals(entries, MapOption.parse(property, ElementParser.STRING, ElementParser.STRING));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DerivedOptionTest {
+    enum Category { TEST }
+
+    @Test
+    public void testDerived() throws Exception {
+        final Option<Integer> multiplier = Option.integer("derived.test.multiplier", Category.TEST, 2, "multiplier");
+        final Option<Integer> max = Option.integer("derived.test.max", Category.TEST, 16, "max");
+        final AtomicInteger computed = new AtomicInteger();
+        DerivedOption<Integer> poolSize = Option.derived("derived.test.poolSize", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                computed.incrementAndGet();
+                return Math.min(4 * option.input(multiplier), option.input(max));
+            }
+        }, "pool size", multiplier, max);
+
+        assertEquals(8, (int) poolSize.load());
+        assertEquals(8, (int) poolSize.load());
+        assertEquals(1, computed.get());
+
+        long version = poolSize.version();
+        multiplier.force("8");
+        assertEquals(1, computed.get());
+        assertEquals(16, (int) poolSize.load());
+        assertEquals(2, computed.get());
+        assertTrue(poolSize.version() > version);
+
+        max.force("20");
+        assertEquals(20, (int) poolSize.load());
+
+        multiplier.unforce();
+        max.unforce();
+        assertEquals(8, (int) poolSize.load());
+        assertEquals(4, computed.get());
+
+        try {
+            poolSize.force("3");
+            fail("expected a derived option to refuse forcing");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testChained() throws Exception {
+        final Option<Integer> base = Option.integer("derived.test.chained.base", Category.TEST, 1, "base");
+        final DerivedOption<Integer> doubled = Option.derived("derived.test.chained.doubled", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                return option.input(base) * 2;
+            }
+        }, "doubled", base);
+        DerivedOption<Integer> quadrupled = Option.derived("derived.test.chained.quadrupled", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                return option.input(doubled) * 2;
+            }
+        }, "quadrupled", doubled);
+        OptionRegistry registry = new OptionRegistry(base, doubled, quadrupled);
+
+        assertEquals(4, (int) quadrupled.load());
+        registry.load(Collections.singletonMap("derived.test.chained.base", "3"));
+        assertEquals(12, (int) quadrupled.load());
+        assertEquals(12, (int) registry.values().get(quadrupled));
+    }
+
+    @Test
+    public void testInputChangedWhileComputing() throws Exception {
+        final Option<Integer> input = Option.integer("derived.test.racing.input", Category.TEST, 1, "input");
+        final AtomicInteger computed = new AtomicInteger();
+        DerivedOption<Integer> derived = Option.derived("derived.test.racing.derived", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                int value = option.input(input);
+
+                // the input changes after it was read, as if by another thread
+                if (computed.incrementAndGet() == 1) input.force("5");
+
+                return value;
+            }
+        }, "derived", input);
+
+        assertEquals(5, (int) derived.load());
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    public void testFormatValues() throws Exception {
+        final Option<Integer> base = Option.integer("derived.test.format.base", Category.TEST, 3, "base");
+        DerivedOption<Integer> doubled = Option.derived("derived.test.format.doubled", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                return option.input(base) * 2;
+            }
+        }, "doubled", base);
+        OptionRegistry registry = new OptionRegistry(base, doubled);
+        registry.load(Collections.<String, String>emptyMap());
+
+        String formatted = registry.formatValues();
+        assertTrue(formatted, formatted.contains("derived.test.format.doubled=6 (derived)\n"));
+        assertFalse(formatted, formatted.contains("<unspecified>"));
+    }
+
+    @Test
+    public void testScopedInputs() throws Exception {
+        final Option<Integer> input = Option.integer("derived.test.scoped.input", Category.TEST, 1, "input");
+        DerivedOption<Integer> derived = Option.derived("derived.test.scoped.derived", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                return option.input(input) + 1;
+            }
+        }, "derived", input);
+
+        OptionScope scope = Option.scope().with(input, "10");
+        try {
+            assertEquals(10, (int) input.load());
+            assertEquals(2, (int) derived.load());
+        } finally {
+            scope.close();
+        }
+
+        Option<Integer> other = Option.integer("derived.test.scoped.other", Category.TEST, 1, "other");
+        try {
+            derived.input(other);
+            fail("expected an undeclared input to be rejected");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+}
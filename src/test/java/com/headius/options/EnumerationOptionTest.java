@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EnumerationOptionTest {
+    enum Category { TEST }
+
+    enum Mode {
+        FAST,
+        SLOW {
+            public String toString() {
+                return "slow";
+            }
+        }
+    }
+
+    @Test
+    public void testConstantBodyDefault() throws Exception {
+        Option<Mode> mode = Option.enumeration("options.test.enum.body", Category.TEST, Mode.SLOW, "mode");
+
+        assertSame(Mode.class, mode.type());
+        assertSame(Mode.SLOW, mode.load());
+    }
+
+    @Test
+    public void testExplicitConstants() throws Exception {
+        Option<Mode> mode = Option.enumeration("options.test.enum.explicit", Category.TEST, Mode.values(), Mode.FAST, "mode");
+
+        assertSame(Mode.class, mode.type());
+        assertArrayEquals(Mode.values(), mode.options());
+
+        System.setProperty("options.test.enum.explicit", "SLOW");
+        try {
+            assertSame(Mode.SLOW, mode.load());
+        } finally {
+            System.clearProperty("options.test.enum.explicit");
+        }
+        assertSame(Mode.FAST, mode.reload());
+    }
+
+    @Test
+    public void testNoConstants() throws Exception {
+        try {
+            Option.enumeration("options.test.enum.empty", Category.TEST, new Mode[0], null, "mode");
+            fail("expected an empty set of constants to be rejected");
+        } catch (IllegalArgumentException iae) {
+            assertEquals("no enum constants given", iae.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnknownConstant() throws Exception {
+        Option<Mode> mode = Option.enumeration("options.test.enum.unknown", Category.TEST, Mode.values(), Mode.FAST, "mode");
+
+        mode.force("MEDIUM");
+        assertSame(Mode.FAST, mode.load());
+        assertEquals("MEDIUM", mode.error().value());
+        assertEquals("not one of [FAST, slow]", mode.error().reason());
+    }
+
+    @Test
+    public void testIgnoreCase() throws Exception {
+        Option<Mode> mode = Option.enumeration("options.test.enum.case", Category.TEST, Mode.class, "mode");
+
+        mode.force("slow");
+        assertSame(Mode.SLOW, mode.load());
+        mode.force("Fast");
+        assertSame(Mode.FAST, mode.load());
+        assertNull(mode.error());
+    }
+
+    @Test
+    public void testAliases() throws Exception {
+        Map<String, Mode> aliases = new HashMap<String, Mode>();
+        aliases.put("quick", Mode.FAST);
+        aliases.put("careful", Mode.SLOW);
+        Option<Mode> mode = Option.enumeration("options.test.enum.alias", Category.TEST, Mode.values(), aliases, Mode.FAST, "mode");
+
+        mode.force("CAREFUL");
+        assertSame(Mode.SLOW, mode.load());
+        mode.force("quick");
+        assertSame(Mode.FAST, mode.load());
+    }
+
+    enum Cased { value, VALUE, Other }
+
+    @Test
+    public void testTable() throws Exception {
+        EnumTable<Cased> table = EnumTable.of(Cased.class);
+
+        assertSame(table, EnumTable.of(Cased.class));
+
+        // exact matches win over names differing only in case
+        assertSame(Cased.value, table.get("value"));
+        assertSame(Cased.VALUE, table.get("VALUE"));
+        assertSame(Cased.Other, table.get("OTHER"));
+        assertNull(table.get("missing"));
+        assertNull(table.get(""));
+    }
+}
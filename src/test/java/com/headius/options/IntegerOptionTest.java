@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntegerOptionTest {
+    enum Category { TEST }
+
+    @Test
+    public void testParse() throws Exception {
+        assertEquals(42, NumberParser.parse("42", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(-42, NumberParser.parse("-42", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(42, NumberParser.parse("+42", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(1000000, NumberParser.parse("1_000_000", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(255, NumberParser.parse("0xFF", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(-16, NumberParser.parse("-0x1_0", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(64 * 1024, NumberParser.parse("64k", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(2L << 30, NumberParser.parse("2G", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(3L << 20, NumberParser.parse("3mb", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(500, NumberParser.parse("500ms", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(2000, NumberParser.parse("2s", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(90 * 60 * 1000, NumberParser.parse("90min", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(Long.MIN_VALUE, NumberParser.parse("-9223372036854775808", NumberParser.SIZE_OR_MILLIS));
+        assertEquals(Long.MAX_VALUE, NumberParser.parse("9223372036854775807", NumberParser.SIZE_OR_MILLIS));
+
+        String[] invalid = {"", "-", "0x", "k", "_1", "1_", "1__0", "12q", "0x10k", "9223372036854775808", "16777216t"};
+        for (String value : invalid) {
+            try {
+                NumberParser.parse(value, NumberParser.SIZE_OR_MILLIS);
+                fail("parsed " + value);
+            } catch (NumberFormatException nfe) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidValue() throws Exception {
+        Option<Integer> count = Option.integer("options.test.integer.invalid", Category.TEST, 7, "count");
+
+        count.force("lots");
+        assertEquals(7, (int) count.load());
+        assertNotNull(count.error());
+        assertEquals("lots", count.error().value());
+
+        count.force("0x10");
+        assertEquals(16, (int) count.load());
+        assertNull(count.error());
+
+        // too large for an int
+        count.force("4g");
+        assertEquals(7, (int) count.load());
+        assertNotNull(count.error());
+    }
+
+    @Test
+    public void testOptions() throws Exception {
+        Option<Integer> timeout = Option.integer("options.test.integer.options", Category.TEST, new Integer[] {60, 15, 30}, 30, "timeout");
+
+        timeout.force("15");
+        assertEquals(15, (int) timeout.load());
+        assertNull(timeout.error());
+
+        timeout.force("20");
+        assertEquals(30, (int) timeout.load());
+        assertEquals("20", timeout.error().value());
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        IntOption buffer = Option.intOption("options.test.integer.range", Category.TEST, 1024, 1 << 20, 8192, "buffer size");
+
+        buffer.force("64k");
+        assertEquals(65536, buffer.loadInt());
+
+        buffer.force("2m");
+        assertEquals(8192, buffer.loadInt());
+        assertTrue(buffer.error().reason().contains("range"));
+
+        buffer.force("512");
+        assertEquals(8192, buffer.loadInt());
+        assertNotNull(buffer.error());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OptionCodecTest {
+    enum Category { TEST }
+    enum Speed { SLOW, FAST }
+
+    private static List<Option> options() {
+        return Arrays.<Option>asList(
+                Option.integer("codec.test.count", Category.TEST, 3, "count"),
+                Option.bool("codec.test.enabled", Category.TEST, false, "enabled"),
+                Option.string("codec.test.name", Category.TEST, "default", "name with \"quotes\""),
+                Option.enumeration("codec.test.speed", Category.TEST, Speed.values(), Speed.SLOW, "speed"),
+                Option.durationOption("codec.test.timeout", Category.TEST, TimeUnit.MILLISECONDS, 500, "timeout"),
+                Option.longOption("codec.test.big", Category.TEST, -1L, "big"));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<Option> options = options();
+        OptionRegistry registry = new OptionRegistry(options);
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("codec.test.count", "42");
+        properties.put("codec.test.name", "tab\there \"quoted\"");
+        properties.put("codec.test.big", "-9000000000");
+        registry.load(properties);
+        options.get(3).force("fast");
+
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("codec.test.count", "42");
+        expected.put("codec.test.name", "tab\there \"quoted\"");
+        expected.put("codec.test.speed", "FAST");
+        expected.put("codec.test.big", "-9000000000");
+
+        StringBuilder json = new StringBuilder();
+        registry.writeJson(json);
+        assertTrue(json.toString().contains("{\"name\":\"codec.test.count\",\"category\":\"TEST\",\"type\":\"java.lang.Integer\",\"description\":\"count\",\"default\":3,"));
+        assertTrue(json.toString().contains("\"value\":\"tab\\there \\\"quoted\\\"\""));
+        assertTrue(json.toString().contains("\"options\":[\"SLOW\",\"FAST\"],\"value\":\"FAST\",\"origin\":\"forced\",\"overridden\":true"));
+        assertEquals(expected, OptionCodec.readJson(new StringReader(json.toString())));
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        registry.writeBinary(binary);
+        assertTrue(binary.size() < json.length());
+        assertEquals(expected, OptionCodec.readBinary(new ByteArrayInputStream(binary.toByteArray())));
+
+        // the overrides rebuild the same values in another registry
+        List<Option> copies = options();
+        new OptionRegistry(copies).load(expected);
+        for (int i = 0; i < options.size(); i++) {
+            assertEquals(options.get(i).load(), copies.get(i).load());
+        }
+    }
+
+    @Test
+    public void testLongStringsAndScopes() throws Exception {
+        StringBuilder longValue = new StringBuilder();
+        while (longValue.length() < 100000) longValue.append("\u00e9long value ");
+
+        Option<String> name = Option.string("codec.test.long", Category.TEST, "default", "long name");
+        OptionRegistry registry = new OptionRegistry(name);
+        name.force(longValue.toString());
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        try (OptionScope scope = Option.scope().with(name, "scoped")) {
+            registry.writeBinary(binary);
+        }
+
+        // the global value is exported, not the exporting thread's scoped one
+        Map<String, String> overrides = OptionCodec.readBinary(new ByteArrayInputStream(binary.toByteArray()));
+        assertEquals(longValue.toString(), overrides.get("codec.test.long"));
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        for (String json : new String[] {"", "[]", "{\"options\":[", "{\"options\":[{\"name\":1,\"overridden\":true}]}", "{\"options\":[]} x"}) {
+            try {
+                OptionCodec.readJson(new StringReader(json));
+                fail("expected " + json + " to be rejected");
+            } catch (IOException ioe) {
+                // expected
+            }
+        }
+
+        try {
+            OptionCodec.readBinary(new ByteArrayInputStream(new byte[] {'J', 'U', 'N', 'K', 1}));
+            fail("expected bad magic to be rejected");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCorruptBinary() throws Exception {
+        // counts of strings, string bytes and options far beyond the input
+        byte[][] corrupt = {
+                {'O', 'P', 'T', 'S', 2, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+                {'O', 'P', 'T', 'S', 2, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+                {'O', 'P', 'T', 'S', 2, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}
+        };
+        for (byte[] bytes : corrupt) {
+            try {
+                OptionCodec.readBinary(new ByteArrayInputStream(bytes));
+                fail("expected " + Arrays.toString(bytes) + " to be rejected");
+            } catch (IllegalArgumentException iae) {
+                // expected
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OptionCodec.writeBinary(out, options());
+        byte[] encoded = out.toByteArray();
+        for (int length = 5; length < encoded.length; length++) {
+            try {
+                OptionCodec.readBinary(new ByteArrayInputStream(Arrays.copyOf(encoded, length)));
+                fail("expected input truncated to " + length + " bytes to be rejected");
+            } catch (IOException ioe) {
+                // expected
+            } catch (IllegalArgumentException iae) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OptionConstraintTest {
+    enum Category { TEST }
+
+    @Test
+    public void testViolations() throws Exception {
+        Option<Boolean> timeout = Option.bool("constraint.test.timeout", Category.TEST, false, "timeout");
+        Option<Integer> timeoutSecs = Option.integer("constraint.test.timeoutSecs", Category.TEST, 30, "seconds");
+        Option<Integer> minThreads = Option.integer("constraint.test.minThreads", Category.TEST, 1, "min");
+        Option<Integer> maxThreads = Option.integer("constraint.test.maxThreads", Category.TEST, 4, "max");
+        OptionRegistry registry = new OptionRegistry(timeout, timeoutSecs, minThreads, maxThreads);
+
+        registry.constrain(OptionConstraint.requires(timeoutSecs, timeout));
+        registry.constrain(OptionConstraint.atLeast(maxThreads, minThreads));
+        assertEquals(Collections.emptyList(), registry.violations());
+
+        // both violations are reported at once
+        registry.transaction()
+                .force(timeoutSecs, "10")
+                .force(minThreads, "8")
+                .commit();
+        List<OptionViolation> violations = registry.violations();
+        assertEquals(2, violations.size());
+        assertSame(timeoutSecs, violations.get(0).option());
+        assertSame(maxThreads, violations.get(1).option());
+        assertEquals("constraint.test.maxThreads is 4 but must be at least constraint.test.minThreads (8)", violations.get(1).message());
+
+        timeout.force("true");
+        violations = registry.violations();
+        assertEquals(1, violations.size());
+        assertSame(maxThreads, violations.get(0).option());
+
+        minThreads.unforce();
+        assertEquals(Collections.emptyList(), registry.violations());
+    }
+
+    @Test
+    public void testIncremental() throws Exception {
+        Option<Integer> a = Option.integer("constraint.test.incremental.a", Category.TEST, 1, "a");
+        Option<Integer> b = Option.integer("constraint.test.incremental.b", Category.TEST, 2, "b");
+        Option<Integer> c = Option.integer("constraint.test.incremental.c", Category.TEST, 3, "c");
+        OptionRegistry registry = new OptionRegistry(a, b, c);
+
+        final AtomicInteger checksOfB = new AtomicInteger();
+        final AtomicInteger checksOfC = new AtomicInteger();
+        registry.constrain(new OptionConstraint(b, a) {
+            protected String check() {
+                checksOfB.incrementAndGet();
+                return null;
+            }
+        });
+        registry.constrain(new OptionConstraint(c) {
+            protected String check() {
+                checksOfC.incrementAndGet();
+                return null;
+            }
+        });
+
+        registry.violations();
+        assertEquals(1, checksOfB.get());
+        assertEquals(1, checksOfC.get());
+
+        // nothing changed, nothing checked
+        registry.violations();
+        assertEquals(1, checksOfB.get());
+
+        a.force("5");
+        registry.violations();
+        assertEquals(2, checksOfB.get());
+        assertEquals(1, checksOfC.get());
+
+        registry.load(Collections.singletonMap("constraint.test.incremental.c", "7"));
+        registry.violations();
+        assertEquals(2, checksOfC.get());
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        Option<Integer> a = Option.integer("constraint.test.order.a", Category.TEST, 1, "a");
+        Option<Integer> b = Option.integer("constraint.test.order.b", Category.TEST, 1, "b");
+        Option<Integer> c = Option.integer("constraint.test.order.c", Category.TEST, 1, "c");
+        OptionRegistry registry = new OptionRegistry(a, b, c);
+
+        // added out of order, reported dependencies first
+        registry.constrain(failing(c, b));
+        registry.constrain(failing(b, a));
+        List<OptionViolation> violations = registry.violations();
+        assertSame(b, violations.get(0).option());
+        assertSame(c, violations.get(1).option());
+
+        try {
+            registry.constrain(failing(a, c));
+            fail("expected a cycle to be rejected");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+        assertEquals(2, registry.violations().size());
+
+        Option<Integer> unregistered = Option.integer("constraint.test.order.unregistered", Category.TEST, 1, "d");
+        try {
+            registry.constrain(failing(a, unregistered));
+            fail("expected an unregistered option to be rejected");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+    private static OptionConstraint failing(final Option<?> subject, Option<?> dependency) {
+        return new OptionConstraint(subject, dependency) {
+            protected String check() {
+                return subject.propertyName();
+            }
+        };
+    }
+}
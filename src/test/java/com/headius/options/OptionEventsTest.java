@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OptionEventsTest {
+    enum Category { TEST }
+
+    @Test
+    public void testEvents() throws Exception {
+        assertTrue(OptionEvents.AVAILABLE);
+
+        Option<Integer> option = Option.integer("events.test.count", Category.TEST, 1, "count");
+        Path file = Files.createTempFile("options", ".jfr");
+        List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+        try {
+            Recording recording = new Recording();
+            recording.enable("com.headius.options.Load");
+            recording.enable("com.headius.options.Force");
+            recording.enable("com.headius.options.Error");
+            recording.start();
+
+            option.load();
+            option.force("bogus");
+            option.unforce();
+            option.load();
+
+            recording.stop();
+            recording.dump(file);
+            recording.close();
+
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if ("events.test.count".equals(event.getString("option"))) events.add(event);
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        List<String> types = new ArrayList<String>();
+        for (RecordedEvent event : events) {
+            types.add(event.getEventType().getName());
+        }
+        assertEquals(6, events.size());
+        assertEquals(2, count(types, "com.headius.options.Force"));
+        assertEquals(3, count(types, "com.headius.options.Load"));
+        assertEquals(1, count(types, "com.headius.options.Error"));
+
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("com.headius.options.Error")) {
+                assertEquals("bogus", event.getString("value"));
+            }
+        }
+    }
+
+    private static int count(List<String> types, String type) {
+        int count = 0;
+        for (String t : types) {
+            if (t.equals(type)) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OptionGeneratorTest {
+    enum Category { FIRST, SECOND }
+    public enum Mode { FAST, SLOW }
+
+    static class Config {
+        static final Option<String> NAME = Option.string("generator.test.name", Category.FIRST, "quoted \"name\"", "the name");
+        static final IntOption COUNT = Option.intOption("generator.test", "count", Category.SECOND, 5, "the count");
+        static final Option<Mode> MODE = Option.enumeration("generator.test.mode", Category.FIRST, Mode.FAST, "the mode");
+        static final Option<Boolean> FLAG = Option.bool("generator.test.flag", Category.SECOND, "a flag\twith a tab");
+
+        final Option<String> ignored = Option.string("generator.test.instance", Category.FIRST, "not static");
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testScan() throws Exception {
+        List<Option> options = OptionGenerator.scan(Config.class);
+
+        assertEquals(4, options.size());
+        assertSame(Config.NAME, options.get(0));
+        assertSame(Config.FLAG, options.get(3));
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        Path sources = folder.newFolder("sources").toPath();
+        Path file = OptionGenerator.generate(sources, "generated.ConfigOptions", Config.class);
+
+        assertEquals(sources.resolve("generated/ConfigOptions.java"), file);
+        String source = new String(Files.readAllBytes(file), Charset.forName("UTF-8"));
+
+        assertTrue(source.contains("package generated;"));
+        assertTrue(source.contains("public final class ConfigOptions {"));
+
+        // names are sorted, with defaults in the same order
+        assertTrue(source.contains(
+                "NAMES = {\n" +
+                "        \"generator.test.count\",\n" +
+                "        \"generator.test.flag\",\n" +
+                "        \"generator.test.mode\",\n" +
+                "        \"generator.test.name\",\n"));
+        assertTrue(source.contains(
+                "DEFAULTS = {\n" +
+                "        5,\n" +
+                "        null,\n" +
+                "        com.headius.options.OptionGeneratorTest.Mode.FAST,\n" +
+                "        \"quoted \\\"name\\\"\",\n"));
+
+        // help text is escaped line by line
+        assertTrue(source.contains("\"# a flag\\twith a tab\""));
+        assertFalse(source.contains("generator.test.instance"));
+        assertTrue(source.contains("OPTIONS = new com.headius.options.GeneratedOptions(NAMES, DEFAULTS, HELP);"));
+    }
+
+    @Test
+    public void testPrepare() throws Exception {
+        OptionRegistry registry = new OptionRegistry();
+        Option<Integer> count = registry.register(Option.integer("generated.test.count", Category.FIRST, 5, "the count"));
+        Option<String> name = registry.register(Option.string("generated.test.name", Category.SECOND, "the name"));
+
+        GeneratedOptions generated = new GeneratedOptions(
+                new String[] {"generated.test.count", "generated.test.name"},
+                new Object[] {5, null},
+                new String[] {"# generated help"});
+        registry.prepare(generated);
+
+        assertSame(count, registry.index().options().get(0));
+        assertSame(name, registry.get("generated.test.name"));
+        assertEquals("# generated help", registry.formatOptions());
+        assertTrue(generated.isOption("generated.test.name"));
+        assertEquals(5, generated.defaultValue("generated.test.count"));
+
+        // a default that no longer matches means the generated class is stale
+        try {
+            registry.prepare(new GeneratedOptions(
+                    new String[] {"generated.test.count", "generated.test.name"},
+                    new Object[] {6, null},
+                    new String[0]));
+            fail("stale defaults accepted");
+        } catch (IllegalArgumentException iae) {
+            assertTrue(iae.getMessage().contains("generated.test.count"));
+        }
+
+        try {
+            registry.prepare(new GeneratedOptions(new String[] {"generated.test.count"}, new Object[1], new String[0]));
+            fail("missing option accepted");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+}
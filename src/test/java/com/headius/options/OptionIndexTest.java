@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OptionIndexTest {
+    enum Category { TEST }
+
+    private final Option<Boolean> jitEnabled = Option.bool("jruby", "jit.enabled", Category.TEST, "jit enabled");
+    private final Option<Integer> jitThreshold = Option.integer("jruby", "jit.threshold", Category.TEST, "jit threshold");
+    private final Option<String> compatVersion = Option.string("jruby", "compat.version", Category.TEST, "compat version");
+    private final Option<String> other = Option.string("other.name", Category.TEST, "other name");
+
+    private final OptionIndex index = new OptionIndex(Arrays.<Option>asList(jitThreshold, other, compatVersion, jitEnabled));
+
+    @Test
+    public void testGet() throws Exception {
+        assertSame(jitThreshold, index.get("jruby.jit.threshold"));
+        assertSame(other, index.get(new StringBuilder("other.name")));
+        assertNull(index.get("jruby.jit"));
+        assertNull(index.get("jruby.jit.thresholds"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testFindByPrefix() throws Exception {
+        assertEquals(Arrays.<Option>asList(jitEnabled, jitThreshold), index.findByPrefix("jruby.jit."));
+        assertEquals(Arrays.<Option>asList(compatVersion, jitEnabled, jitThreshold), index.findByPrefix("jruby."));
+        assertEquals(Collections.<Option>emptyList(), index.findByPrefix("jruby.ir."));
+        assertEquals(index.options(), index.findByPrefix(""));
+    }
+
+    @Test
+    public void testUnknownProperties() throws Exception {
+        assertTrue(index.isUnknown("jruby.jit.treshold"));
+        assertFalse(index.isUnknown("jruby.jit.threshold"));
+        assertFalse(index.isUnknown("java.version"));
+
+        List<String> names = Arrays.asList("jruby.jit.enabled", "jruby.jit.treshold", "java.version", "other.nam");
+        assertEquals(Arrays.asList("jruby.jit.treshold"), index.unknownProperties(names));
+        assertEquals(Arrays.asList("other.nam"), index.unknownProperties(names, "other."));
+    }
+
+    @Test
+    public void testRegistryIndex() throws Exception {
+        OptionRegistry registry = new OptionRegistry(jitEnabled, jitThreshold);
+        OptionIndex registryIndex = registry.index();
+        assertSame(registryIndex, registry.index());
+
+        registry.register(compatVersion);
+        assertNotSame(registryIndex, registry.index());
+        assertSame(compatVersion, registry.index().get("jruby.compat.version"));
+    }
+}
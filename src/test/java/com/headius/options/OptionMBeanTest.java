@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.RuntimeOperationsException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class OptionMBeanTest {
+    enum Category { TEST }
+
+    @Test
+    public void testMBean() throws Exception {
+        final Option<Integer> timeoutSecs = Option.integer("mbean.test.timeoutSecs", Category.TEST, 30, "timeout in seconds");
+        Option<String> name = Option.string("mbean.test.name", Category.TEST, "name");
+        Option<Integer> timeoutMillis = Option.derived("mbean.test.timeoutMillis", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                return option.input(timeoutSecs) * 1000;
+            }
+        }, "timeout in milliseconds", timeoutSecs);
+        OptionRegistry registry = new OptionRegistry(timeoutSecs, name, timeoutMillis);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = OptionMBean.register(registry, "test");
+        try {
+            assertEquals("com.headius.options:type=OptionRegistry,name=\"test\"", objectName.toString());
+
+            MBeanAttributeInfo[] attributes = server.getMBeanInfo(objectName).getAttributes();
+            assertEquals(3, attributes.length);
+            assertEquals("mbean.test.timeoutSecs", attributes[0].getName());
+            assertEquals("timeout in seconds", attributes[0].getDescription());
+
+            assertEquals("30", server.getAttribute(objectName, "mbean.test.timeoutSecs"));
+            assertNull(server.getAttribute(objectName, "mbean.test.name"));
+            assertEquals("30", server.invoke(objectName, "defaultValue", new Object[] {"mbean.test.timeoutSecs"}, new String[] {"java.lang.String"}));
+            assertEquals(false, server.invoke(objectName, "isSpecified", new Object[] {"mbean.test.timeoutSecs"}, new String[] {"java.lang.String"}));
+
+            server.invoke(objectName, "force", new Object[] {"mbean.test.timeoutSecs", "60"}, new String[] {"java.lang.String", "java.lang.String"});
+            assertEquals(60, (int) timeoutSecs.load());
+            assertEquals("60", server.getAttribute(objectName, "mbean.test.timeoutSecs"));
+            assertEquals("forced", server.invoke(objectName, "origin", new Object[] {"mbean.test.timeoutSecs"}, new String[] {"java.lang.String"}));
+
+            server.invoke(objectName, "unforce", new Object[] {"mbean.test.timeoutSecs"}, new String[] {"java.lang.String"});
+            assertEquals(30, (int) timeoutSecs.load());
+
+            try {
+                server.setAttribute(objectName, new Attribute("mbean.test.timeoutSecs", "10"));
+                fail("expected options to be read-only attributes");
+            } catch (RuntimeOperationsException roe) {
+                assertTrue(roe.getTargetException() instanceof UnsupportedOperationException);
+            }
+
+            try {
+                server.setAttribute(objectName, new Attribute("mbean.test.missing", "10"));
+                fail("expected an unknown attribute to be rejected");
+            } catch (AttributeNotFoundException anfe) {
+                // expected
+            }
+
+            try {
+                server.invoke(objectName, "force", new Object[] {"mbean.test.timeoutMillis", "10"}, new String[] {"java.lang.String", "java.lang.String"});
+                fail("expected a derived option to refuse a forced value");
+            } catch (RuntimeOperationsException roe) {
+                assertTrue(roe.getTargetException() instanceof UnsupportedOperationException);
+            }
+
+            try {
+                server.invoke(objectName, "unforce", new Object[] {"mbean.test.missing"}, new String[] {"java.lang.String"});
+                fail("expected an unknown option to be rejected");
+            } catch (RuntimeOperationsException roe) {
+                // expected
+            }
+        } finally {
+            server.unregisterMBean(objectName);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OptionMetricsTest {
+    enum Category { TEST }
+
+    @Test
+    public void testCounters() throws Exception {
+        Option<Integer> option = Option.integer("metrics.test.counters", Category.TEST, 1, "counters");
+        OptionMetrics.Counters counters = new OptionMetrics.Counters();
+
+        OptionMetrics empty = counters.snapshot(option);
+        assertEquals(0, empty.parses());
+        assertEquals(0, empty.parseNanos(50));
+        assertEquals("loads=0, parses=0, forces=0, unforces=0", empty.toString());
+
+        counters.loads.add(10);
+        counters.forces.increment();
+        counters.parsed(0);
+        counters.parsed(100);
+        counters.parsed(120);
+        counters.parsed(5000);
+
+        OptionMetrics metrics = counters.snapshot(option);
+        assertSame(option, metrics.option());
+        assertEquals(10, metrics.loads());
+        assertEquals(1, metrics.forces());
+        assertEquals(0, metrics.unforces());
+        assertEquals(4, metrics.parses());
+        assertEquals(1, metrics.parseHistogram()[0]);
+        assertEquals(2, metrics.parseHistogram()[7]);
+        assertEquals(128, metrics.parseNanos(50));
+        assertEquals(8192, metrics.parseNanos(100));
+        assertEquals("loads=10, parses=4, forces=1, unforces=0, parse median<=128ns, max<=8192ns", metrics.toString());
+    }
+
+    @Test
+    public void testRegistry() throws Exception {
+        IntOption option = Option.intOption("metrics.test.registry", Category.TEST, 1, "registry");
+        OptionRegistry registry = new OptionRegistry(option);
+
+        option.loadInt();
+        option.load();
+        option.force("2");
+        option.unforce();
+        option.loadInt();
+
+        List<OptionMetrics> metrics = registry.metrics();
+        if (!OptionMetrics.ENABLED) {
+            assertNull(option.metrics());
+            assertTrue(metrics.isEmpty());
+            assertEquals("", registry.formatMetrics());
+            return;
+        }
+
+        assertEquals(1, metrics.size());
+        assertEquals(3, metrics.get(0).loads());
+        assertEquals(1, metrics.get(0).forces());
+        assertEquals(1, metrics.get(0).unforces());
+        assertEquals(3, metrics.get(0).parses());
+        assertTrue(registry.formatMetrics().contains("metrics.test.registry: loads="));
+    }
+}
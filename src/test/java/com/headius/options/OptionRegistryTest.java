@@ -0,0 +1,330 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class OptionRegistryTest {
+    enum Category { TEST }
+    enum Grouped { FIRST, SECOND }
+
+    @Test
+    public void testLoadFromMap() throws Exception {
+        Option<String> name = Option.string("registry.test.name", Category.TEST, "none", "name");
+        IntOption count = Option.intOption("registry.test", "count", Category.TEST, 1, "count");
+        Option<Boolean> flag = Option.bool("registry.test.flag", Category.TEST, false, "flag");
+
+        OptionRegistry registry = new OptionRegistry(name, count, flag);
+        assertFalse(registry.isLoaded());
+        assertSame(count, registry.get("registry.test.count"));
+
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("registry.test.name", "loaded");
+        properties.put("registry.test.count", "5");
+        properties.put("registry.test.unrelated", "ignored");
+        registry.load(properties);
+
+        assertTrue(registry.isLoaded());
+        assertEquals("loaded", name.load());
+        assertTrue(name.isSpecified());
+        assertEquals(5, count.loadInt());
+        assertFalse(flag.load());
+        assertFalse(flag.isSpecified());
+
+        // later changes to the map are not seen until the registry is reloaded
+        properties.put("registry.test.name", "changed");
+        assertEquals("loaded", name.reload());
+        registry.load(properties);
+        assertEquals("changed", name.load());
+
+        // options registered after loading resolve from the current snapshot
+        Option<String> unrelated = registry.register(Option.string("registry.test.unrelated", Category.TEST, "unrelated"));
+        assertEquals("ignored", unrelated.load());
+    }
+
+    @Test
+    public void testLoadFromSystemProperties() throws Exception {
+        Option<String> name = Option.string("registry.test.system", Category.TEST, "system");
+        OptionRegistry registry = new OptionRegistry(name);
+
+        System.setProperty("registry.test.system", "from system");
+        try {
+            registry.load();
+            assertEquals("from system", name.load());
+        } finally {
+            System.clearProperty("registry.test.system");
+        }
+    }
+
+    @Test
+    public void testSources() throws Exception {
+        Option<String> high = Option.string("registry.sources.high", Category.TEST, "default", "high");
+        Option<String> low = Option.string("registry.sources.low", Category.TEST, "default", "low");
+        Option<String> none = Option.string("registry.sources.none", Category.TEST, "default", "none");
+        OptionRegistry registry = new OptionRegistry(high, low, none);
+
+        Map<String, String> first = new HashMap<String, String>();
+        first.put("registry.sources.high", "first");
+        Map<String, String> second = new HashMap<String, String>();
+        second.put("registry.sources.high", "second");
+        second.put("registry.sources.low", "second");
+
+        OptionSource firstSource = OptionSource.fromMap("first", first);
+        registry.sources(firstSource, OptionSource.fromMap("second", second));
+        registry.load();
+
+        assertEquals("first", high.load());
+        assertEquals("first", high.origin());
+        assertEquals("second", low.load());
+        assertEquals("second", low.origin());
+        assertEquals("default", none.load());
+        assertEquals("default", none.origin());
+
+        high.force("forced");
+        assertEquals("forced", high.origin());
+        high.unforce();
+        assertEquals("first", high.origin());
+
+        // refreshing an unchanged source reloads nothing
+        long version = low.version();
+        registry.refresh(firstSource);
+        assertEquals(version, low.version());
+
+        assertTrue(registry.formatValues().contains("registry.sources.low=second (second)"));
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        Option<String> name = Option.string("registry.refresh.name", Category.TEST, "default", "name");
+        Option<String> other = Option.string("registry.refresh.other", Category.TEST, "default", "other");
+        OptionRegistry registry = new OptionRegistry(name, other);
+
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("registry.refresh.name", "first");
+        properties.put("registry.refresh.other", "other");
+        OptionSource source = new OptionSource() {
+            public String name() {
+                return "live";
+            }
+
+            public Map<String, String> properties() {
+                return new HashMap<String, String>(properties);
+            }
+        };
+
+        registry.sources(source);
+        registry.load();
+        assertEquals("first", name.load());
+        long otherVersion = other.version();
+
+        properties.put("registry.refresh.name", "second");
+        registry.refresh(source);
+
+        assertEquals("second", name.load());
+        assertEquals(otherVersion, other.version());
+
+        properties.remove("registry.refresh.name");
+        registry.refresh(source);
+        assertEquals("default", name.load());
+        assertEquals("default", name.origin());
+    }
+
+    @Test
+    public void testEnvironment() throws Exception {
+        assertEquals("CONFIG_TIMEOUTSECS", EnvironmentSource.variableName("config.timeoutSecs"));
+        assertEquals("JRUBY_JIT_MAX_SIZE", EnvironmentSource.variableName("jruby.jit.max-size"));
+
+        Option<Integer> timeoutSecs = Option.integer("registry.env.timeoutSecs", Category.TEST, 30, "timeout");
+        Option<String> name = Option.string("registry.env.name", Category.TEST, "default", "name");
+        OptionRegistry registry = new OptionRegistry(timeoutSecs, name);
+
+        Map<String, String> environment = new HashMap<String, String>();
+        environment.put("REGISTRY_ENV_TIMEOUTSECS", "60");
+        environment.put("REGISTRY_ENV_NAME", "env");
+        environment.put("REGISTRY_ENV_LATER", "later");
+        environment.put("JAVA_HOME", "/jdk");
+        EnvironmentSource source = new EnvironmentSource(registry, null, environment);
+
+        registry.sources(OptionSource.fromMap("map", Collections.singletonMap("registry.env.name", "map")), source);
+        registry.load();
+        assertEquals(60, (int) timeoutSecs.load());
+        assertEquals("environment", timeoutSecs.origin());
+        assertEquals("map", name.load());
+
+        // the mapping is reused until more options are registered
+        Map<String, String> properties = source.properties();
+        assertSame(properties, source.properties());
+
+        Option<String> later = Option.string("registry.env.Later", Category.TEST, "default", "later");
+        registry.register(later);
+        registry.load();
+        assertNotSame(properties, source.properties());
+        assertEquals("later", later.load());
+
+        // only registered options are supplied
+        assertFalse(source.properties().containsKey("java.home"));
+
+        // two options sharing a variable name are rejected
+        registry.register(Option.string("registry.env-name", Category.TEST, "default", "colliding name"));
+        try {
+            source.properties();
+            fail("expected options sharing a variable to be rejected");
+        } catch (IllegalArgumentException iae) {
+            assertTrue(iae.getMessage().contains("REGISTRY_ENV_NAME"));
+        }
+    }
+
+    @Test
+    public void testEnvironmentPrefix() throws Exception {
+        Map<String, String> environment = new HashMap<String, String>();
+        environment.put("CONFIG_NAME", "env");
+        environment.put("CONFIG_JIT_MAX", "10");
+        environment.put("JAVA_HOME", "/jdk");
+        environment.put("CONFIGURATION", "other");
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("config.name", "env");
+        expected.put("config.jit.max", "10");
+        assertEquals(expected, new EnvironmentSource(null, "config", environment).properties());
+        assertEquals(expected, new EnvironmentSource(null, "config.", environment).properties());
+
+        // a registry matches the variables to its camel-case options
+        environment.put("CONFIG_TIMEOUTSECS", "60");
+        Option<Integer> timeoutSecs = Option.integer("config.timeoutSecs", Category.TEST, 30, "timeout");
+        Option<String> javaHome = Option.string("java.home", Category.TEST, "none", "java home");
+        OptionRegistry registry = new OptionRegistry(timeoutSecs, javaHome);
+        registry.sources(new EnvironmentSource(null, "config", environment));
+        registry.load();
+        assertEquals(60, (int) timeoutSecs.load());
+        assertEquals("environment", timeoutSecs.origin());
+        assertEquals("none", javaHome.load());
+    }
+
+    @Test
+    public void testPrepare() throws Exception {
+        Option<String> name = Option.string("registry.prepare.name", Category.TEST, "default", "name");
+        OptionRegistry registry = new OptionRegistry(name);
+
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("registry.prepare.name", "build time");
+        registry.load(properties);
+        assertEquals("build time", name.load());
+
+        assertSame(registry, registry.prepare());
+        assertFalse(registry.isLoaded());
+        assertFalse(name.isSpecified());
+        assertEquals("default", name.load());
+
+        properties.put("registry.prepare.name", "run time");
+        registry.load(properties);
+        assertEquals("run time", name.load());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() throws Exception {
+        new OptionRegistry(
+                Option.string("registry.test.duplicate", Category.TEST, "first"),
+                Option.string("registry.test.duplicate", Category.TEST, "second"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAlreadyRegistered() throws Exception {
+        Option<String> option = Option.string("registry.test.owned", Category.TEST, "owned");
+        new OptionRegistry(option);
+        new OptionRegistry(option);
+    }
+
+    @Test
+    public void testSorted() throws Exception {
+        Option<String> b = Option.string("registry.sorted.b", Grouped.SECOND, "b");
+        Option<String> a = Option.string("registry.sorted.a", Grouped.SECOND, "a");
+        Option<String> c = Option.string("registry.sorted.c", Grouped.FIRST, "c");
+
+        OptionRegistry registry = new OptionRegistry(b, a);
+        SortedOptions sorted = registry.sorted();
+        assertSame(sorted, registry.sorted());
+        assertEquals(Arrays.<Option>asList(a, b), sorted.get(Grouped.SECOND));
+        assertTrue(sorted.get(Grouped.FIRST).isEmpty());
+
+        registry.register(c);
+        sorted = registry.sorted();
+        assertEquals(Arrays.<Enum>asList(Grouped.FIRST, Grouped.SECOND), Arrays.asList(sorted.categories().toArray()));
+        assertEquals(Arrays.<Option>asList(c, a, b), sorted.options());
+        assertEquals(Option.formatOptions(a, b, c), registry.formatOptions());
+        assertEquals(Option.formatValues(a, b, c), registry.formatValues());
+    }
+
+    @Test
+    public void testBatchListener() throws Exception {
+        final IntOption threads = Option.intOption("registry.listener.threads", Category.TEST, 4, "threads");
+        final IntOption queue = Option.intOption("registry.listener.queue", Category.TEST, 100, "queue");
+        final IntOption unchanged = Option.intOption("registry.listener.unchanged", Category.TEST, 1, "unchanged");
+        final OptionRegistry registry = new OptionRegistry(threads, queue, unchanged);
+
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        Executor queued = new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final List<List<OptionChange<?>>> batches = new ArrayList<List<OptionChange<?>>>();
+        registry.addListener(new OptionBatchListener() {
+            public void optionsChanged(List<OptionChange<?>> changes) {
+                batches.add(changes);
+            }
+        }, queued);
+
+        registry.batch(new Runnable() {
+            public void run() {
+                threads.force("8");
+                queue.force("200");
+                threads.force("16");
+                unchanged.force("2");
+                unchanged.force("1");
+            }
+        });
+
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+
+        assertEquals(1, batches.size());
+        List<OptionChange<?>> batch = batches.get(0);
+        assertEquals(2, batch.size());
+        assertSame(threads, batch.get(0).option());
+        assertEquals(4, batch.get(0).oldValue());
+        assertEquals(16, batch.get(0).newValue());
+        assertSame(queue, batch.get(1).option());
+        assertEquals(200, batch.get(1).newValue());
+
+        // changes outside a batch are still coalesced until the executor runs
+        threads.unforce();
+        queue.unforce();
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(2, batches.get(1).size());
+    }
+}
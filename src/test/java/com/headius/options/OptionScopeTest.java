@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class OptionScopeTest {
+    enum Category { TEST }
+
+    @Test
+    public void testScope() throws Exception {
+        IntOption count = Option.intOption("scope.test.count", Category.TEST, 1, "count");
+        Option<String> name = Option.string("scope.test.name", Category.TEST, "global", "name");
+
+        assertEquals(1, count.loadInt());
+        long version = count.version();
+
+        try (OptionScope scope = Option.scope().with(count, "5").with(name, "scoped")) {
+            assertEquals(5, count.loadInt());
+            assertEquals("scoped", name.load());
+
+            try (OptionScope inner = Option.scope().with(count, "10")) {
+                assertEquals(10, count.loadInt());
+                assertEquals("scoped", name.load());
+            }
+
+            assertEquals(5, count.loadInt());
+            assertFalse(count.isSpecified());
+        }
+
+        assertEquals(1, count.loadInt());
+        assertEquals("global", name.load());
+        assertEquals(version, count.version());
+        assertFalse(count.isScoped());
+    }
+
+    @Test
+    public void testOtherThreads() throws Exception {
+        final Option<String> name = Option.string("scope.test.thread", Category.TEST, "global", "name");
+        final AtomicReference<String> seen = new AtomicReference<String>();
+
+        try (OptionScope scope = Option.scope().with(name, "scoped")) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    seen.set(name.load());
+                }
+            });
+            thread.start();
+            thread.join();
+
+            assertEquals("scoped", name.load());
+        }
+
+        assertEquals("global", seen.get());
+    }
+
+    @Test
+    public void testReloadIgnoresScope() throws Exception {
+        Option<String> name = Option.string("scope.test.reload", Category.TEST, "global", "name");
+
+        try (OptionScope scope = Option.scope().with(name, "scoped")) {
+            assertEquals("global", name.reload());
+            assertEquals("scoped", name.load());
+        }
+    }
+
+    @Test
+    public void testConstantHandleIgnoresScope() throws Throwable {
+        Option<String> name = Option.string("scope.test.constant", Category.TEST, "global", "name");
+
+        try (OptionScope scope = Option.scope().with(name, "scoped")) {
+            // the handle is linked within the scope, but must not capture it
+            assertEquals("global", (String) name.asConstantHandle().invoke());
+            name.force("forced");
+            assertEquals("forced", (String) name.asConstantHandle().invoke());
+        } finally {
+            name.unforce();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCloseOutOfOrder() throws Exception {
+        OptionScope outer = Option.scope();
+        OptionScope inner = Option.scope();
+        try {
+            outer.close();
+        } finally {
+            inner.close();
+            outer.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OptionTest {
+    enum Category { TEST }
+
+    @Test
+    public void testConstantHandle() throws Throwable {
+        Option<String> option = Option.string("options.test.constant", Category.TEST, "default", "constant string");
+        MethodHandle handle = option.asConstantHandle();
+
+        assertSame(handle, option.asConstantHandle());
+        assertEquals("default", (String) handle.invokeExact());
+
+        option.force("forced");
+        assertEquals("forced", (String) handle.invokeExact());
+        assertEquals("forced", (String) handle.invokeExact());
+
+        option.unforce();
+        assertEquals("default", (String) handle.invokeExact());
+    }
+
+    @Test
+    public void testReloadRereadsProperty() throws Exception {
+        Option<String> option = Option.string("options.test.reload", Category.TEST, "default", "reloaded string");
+
+        assertEquals("default", option.load());
+        long version = option.version();
+
+        System.setProperty("options.test.reload", "changed");
+        try {
+            assertEquals("default", option.load());
+            assertEquals("changed", option.reload());
+            assertEquals("changed", option.load());
+            assertTrue(option.isSpecified());
+            assertTrue(option.version() > version);
+        } finally {
+            System.clearProperty("options.test.reload");
+        }
+
+        assertEquals("default", option.reload());
+        assertFalse(option.isSpecified());
+    }
+
+    @Test
+    public void testConcurrentLoadReloadForce() throws Exception {
+        final IntOption option = Option.intOption("options.test.concurrent", Category.TEST, 1, "contended int");
+        final int threads = 8;
+        final int iterations = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int t = 0; t < threads; t++) {
+                final int id = t;
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        start.await();
+                        long lastVersion = -1;
+                        for (int i = 0; i < iterations; i++) {
+                            switch ((id + i) % 4) {
+                                case 0:
+                                    option.force(id % 2 == 0 ? "2" : "3");
+                                    break;
+                                case 1:
+                                    option.reload();
+                                    break;
+                                default:
+                                    break;
+                            }
+                            int value = option.loadInt();
+                            assertTrue("unexpected value " + value, value >= 1 && value <= 3);
+
+                            long version = option.version();
+                            assertTrue("version went backwards", version >= lastVersion);
+                            lastVersion = version;
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        option.force("3");
+        assertEquals(3, option.loadInt());
+        assertEquals(Integer.valueOf(3), option.load());
+
+        option.unforce();
+        assertEquals(1, option.loadInt());
+    }
+
+    @Test
+    public void testFormatToAppendable() throws Exception {
+        Option<String> plain = Option.string("options.test.format.plain", Category.TEST, "value", "plain value");
+        Option<String> spaced = Option.string("options.test.format.spaced", Category.TEST, "a\tb\nc d", "spaced value");
+        Option<Integer> unspecified = Option.integer("options.test.format.unspecified", Category.TEST, "no value");
+
+        StringWriter values = new StringWriter();
+        Option.formatValues(values, Arrays.<Option>asList(spaced, unspecified, plain));
+        assertEquals(
+                "\nTEST\n" +
+                "options.test.format.plain=value\n" +
+                "options.test.format.spaced=\"a\\tb\\nc d\"\n" +
+                "options.test.format.unspecified=<unspecified>\n",
+                values.toString());
+        assertEquals(values.toString(), Option.formatValues(plain, spaced, unspecified));
+
+        StringWriter options = new StringWriter();
+        Option.formatOptions(options, Arrays.<Option>asList(plain, spaced, unspecified));
+        assertEquals(options.toString(), Option.formatOptions(plain, spaced, unspecified));
+        assertTrue(options.toString().contains("#options.test.format.spaced=\"a\\tb\\nc d\"\n"));
+    }
+
+    @Test
+    public void testForceParsesFirst() throws Exception {
+        Option<String> option = new StringOption("options.test.force.throws", Category.TEST, null, "default", "throwing string") {
+            @Override
+            protected String reloadValue() {
+                String value = super.reloadValue();
+                if (value.equals("bad")) throw new IllegalArgumentException(value);
+                return value;
+            }
+        };
+
+        option.force("good");
+        try {
+            option.force("bad");
+            fail("bad value was forced");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+
+        assertEquals("good", option.load());
+        assertEquals("good", option.reload());
+        assertEquals("forced", option.origin());
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        IntOption option = Option.intOption("options.test.listener", Category.TEST, 10, "listened int");
+        final List<OptionChange<Integer>> changes = new ArrayList<OptionChange<Integer>>();
+        OptionListener<Integer> listener = new OptionListener<Integer>() {
+            public void optionChanged(OptionChange<Integer> change) {
+                changes.add(change);
+            }
+        };
+        option.addListener(listener);
+
+        option.force("20");
+        option.force("20");
+        option.unforce();
+
+        assertEquals(2, changes.size());
+        assertEquals(Integer.valueOf(10), changes.get(0).oldValue());
+        assertEquals(Integer.valueOf(20), changes.get(0).newValue());
+        assertEquals(OptionChange.Source.FORCE, changes.get(0).source());
+        assertEquals(Integer.valueOf(20), changes.get(1).oldValue());
+        assertEquals(Integer.valueOf(10), changes.get(1).newValue());
+        assertEquals(OptionChange.Source.UNFORCE, changes.get(1).source());
+
+        option.removeListener(listener);
+        option.force("30");
+        assertEquals(2, changes.size());
+    }
+}
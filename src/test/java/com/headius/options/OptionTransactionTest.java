@@ -0,0 +1,221 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class OptionTransactionTest {
+    enum Category { TEST }
+
+    @Test
+    public void testCommit() throws Exception {
+        Option<Boolean> timeout = Option.bool("transaction.test.timeout", Category.TEST, false, "timeout");
+        Option<Integer> timeoutSecs = Option.integer("transaction.test.timeoutSecs", Category.TEST, 30, "seconds");
+        OptionRegistry registry = new OptionRegistry(timeout, timeoutSecs);
+
+        OptionValues before = registry.values();
+        assertSame(before, registry.values());
+        assertFalse(before.get(timeout));
+
+        final List<List<OptionChange<?>>> batches = new ArrayList<List<OptionChange<?>>>();
+        registry.addListener(new OptionBatchListener() {
+            public void optionsChanged(List<OptionChange<?>> changes) {
+                batches.add(changes);
+            }
+        }, new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+
+        OptionTransaction transaction = registry.transaction()
+                .force(timeout, "true")
+                .force(timeoutSecs, "10")
+                .force(timeoutSecs, "60");
+        assertFalse(timeout.load());
+        transaction.commit();
+
+        OptionValues after = registry.values();
+        assertTrue(after.get(timeout));
+        assertEquals(60, (int) after.get(timeoutSecs));
+        assertEquals(60, (int) timeoutSecs.load());
+
+        // earlier snapshots are unchanged
+        assertFalse(before.get(timeout));
+        assertEquals(30, (int) before.get(timeoutSecs));
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+
+        registry.transaction().unforce(timeout).unforce(timeoutSecs).commit();
+        assertFalse(registry.values().get(timeout));
+        assertEquals(30, (int) registry.values().get(timeoutSecs));
+
+        // changes outside a transaction are seen too
+        timeoutSecs.force("15");
+        assertEquals(15, (int) registry.values().get(timeoutSecs));
+    }
+
+    @Test
+    public void testConsistentReads() throws Exception {
+        final IntOption first = Option.intOption("transaction.test.first", Category.TEST, 0, "first");
+        final IntOption second = Option.intOption("transaction.test.second", Category.TEST, 0, "second");
+        final OptionRegistry registry = new OptionRegistry(first, second);
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> torn = new AtomicReference<String>();
+        Thread[] readers = new Thread[2];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(new Runnable() {
+                public void run() {
+                    while (!done.get()) {
+                        OptionValues values = registry.values();
+                        int a = values.get(first);
+                        int b = values.get(second);
+                        if (a != b) torn.set(a + " != " + b);
+                    }
+                }
+            });
+            readers[i].start();
+        }
+
+        for (int i = 1; i <= 2000; i++) {
+            String value = Integer.toString(i);
+            registry.transaction().force(first, value).force(second, value).commit();
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(torn.get());
+        assertEquals(2000, (int) registry.values().get(second));
+    }
+
+    @Test
+    public void testFailedCommitChangesNothing() throws Exception {
+        final Option<Integer> count = Option.integer("transaction.test.failed.count", Category.TEST, 1, "count");
+        Option<String> name = new StringOption("transaction.test.failed.name", Category.TEST, null, "default", "throwing string") {
+            @Override
+            protected String reloadValue() {
+                String value = super.reloadValue();
+                if (value.equals("bad")) throw new IllegalArgumentException(value);
+                return value;
+            }
+        };
+        DerivedOption<Integer> doubled = Option.derived("transaction.test.failed.doubled", Integer.class, Category.TEST, new Derivation<Integer>() {
+            public Integer derive(DerivedOption<Integer> option) {
+                return 2 * option.input(count);
+            }
+        }, "doubled", count);
+        OptionRegistry registry = new OptionRegistry(count, name, doubled);
+        OptionValues before = registry.values();
+
+        try {
+            registry.transaction().force(count, "5").force(name, "bad").commit();
+            fail("bad value was committed");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+
+        try {
+            registry.transaction().force(count, "5").force(doubled, "3").commit();
+            fail("derived option was forced");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+
+        assertEquals(1, (int) count.load());
+        assertEquals("default", name.load());
+        assertEquals(2, (int) doubled.load());
+        assertSame(before, registry.values());
+    }
+
+    @Test
+    public void testListenersAfterLock() throws Exception {
+        IntOption count = Option.intOption("transaction.test.listeners", Category.TEST, 1, "count");
+        final OptionRegistry registry = new OptionRegistry(count);
+        final List<String> heard = new ArrayList<String>();
+
+        count.addListener(new OptionListener<Integer>() {
+            public void optionChanged(OptionChange<Integer> change) {
+                heard.add("option " + Thread.holdsLock(registry));
+            }
+        });
+        registry.addListener(new OptionBatchListener() {
+            public void optionsChanged(List<OptionChange<?>> changes) {
+                heard.add("registry " + Thread.holdsLock(registry));
+            }
+        }, new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+
+        count.load();
+        registry.transaction().force(count, "2").commit();
+
+        assertEquals(Arrays.asList("option false", "registry false"), heard);
+    }
+
+    @Test
+    public void testValuesWithConcurrentForces() throws Exception {
+        final IntOption count = Option.intOption("transaction.test.concurrent", Category.TEST, 0, "count");
+        final OptionRegistry registry = new OptionRegistry(count);
+
+        Thread forcing = new Thread(new Runnable() {
+            public void run() {
+                for (int i = 1; i <= 2000; i++) {
+                    count.force(Integer.toString(i));
+                }
+            }
+        });
+        forcing.start();
+        while (forcing.isAlive()) {
+            registry.values();
+        }
+        forcing.join();
+
+        // no stale snapshot was left behind by a build racing the last force
+        assertEquals(2000, (int) registry.values().get(count));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnregistered() throws Exception {
+        OptionRegistry registry = new OptionRegistry(Option.string("transaction.test.registered", Category.TEST, "registered"));
+
+        registry.transaction().force(Option.string("transaction.test.unregistered", Category.TEST, "unregistered"), "x").commit();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitTwice() throws Exception {
+        Option<String> name = Option.string("transaction.test.twice", Category.TEST, "name");
+        OptionTransaction transaction = new OptionRegistry(name).transaction().force(name, "x");
+
+        transaction.commit();
+        transaction.commit();
+    }
+}
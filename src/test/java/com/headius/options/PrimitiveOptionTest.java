@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveOptionTest {
+    enum Category { TEST }
+
+    @Test
+    public void testInt() throws Exception {
+        IntOption option = Option.intOption("options.test.int", Category.TEST, 5, "int value");
+
+        assertEquals(5, option.loadInt());
+
+        option.force("1000");
+        assertEquals(1000, option.loadInt());
+        assertEquals(Integer.valueOf(1000), option.load());
+
+        option.unforce();
+        assertEquals(5, option.loadInt());
+    }
+
+    @Test
+    public void testLong() throws Exception {
+        LongOption option = Option.longOption("options.test", "long", Category.TEST, 5L, "long value");
+
+        assertEquals(5L, option.loadLong());
+
+        option.force("10000000000");
+        assertEquals(10000000000L, option.loadLong());
+    }
+
+    @Test
+    public void testDouble() throws Exception {
+        DoubleOption option = Option.doubleOption("options.test.double", Category.TEST, 0.5, "double value");
+
+        assertEquals(0.5, option.loadDouble(), 0.0);
+
+        option.force("1.25");
+        assertEquals(1.25, option.loadDouble(), 0.0);
+    }
+
+    @Test
+    public void testInvalidValue() throws Exception {
+        LongOption count = Option.longOption("options.test.long.invalid", Category.TEST, 5L, "long value");
+        DoubleOption ratio = Option.doubleOption("options.test.double.invalid", Category.TEST, 0.5, "double value");
+
+        count.force("64k");
+        assertEquals(5L, count.loadLong());
+        assertEquals("64k", count.error().value());
+
+        count.force("0x10");
+        assertEquals(16L, count.loadLong());
+        assertNull(count.error());
+
+        ratio.force("half");
+        assertEquals(0.5, ratio.loadDouble(), 0.0);
+        assertEquals("half", ratio.error().value());
+    }
+
+    @Test
+    public void testBoolean() throws Exception {
+        BoolOption option = Option.boolOption("options.test.bool", Category.TEST, false, "boolean switch");
+
+        assertFalse(option.loadBoolean());
+
+        option.force("");
+        assertTrue(option.loadBoolean());
+
+        option.force("false");
+        assertFalse(option.loadBoolean());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2021 Charles Oliver Nutter <headius@headius.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.headius.options;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PropertiesFileSourceTest {
+    enum Category { TEST }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParse() throws Exception {
+        Map<String, String> properties = PropertiesFileSource.parse(
+                "# comment\n" +
+                "! also a comment\n" +
+                "\n" +
+                "  plain = value\n" +
+                "colon:other\n" +
+                "spaced value with spaces\n" +
+                "escaped=a\\tb\\u0041\n" +
+                "continued=one \\\n" +
+                "    two\r\n" +
+                "quoted=\"a\\tb c\"\n" +
+                "notquoted=\"abc\"\n" +
+                "empty=");
+
+        assertEquals(8, properties.size());
+        assertEquals("value", properties.get("plain"));
+        assertEquals("other", properties.get("colon"));
+        assertEquals("value with spaces", properties.get("spaced"));
+        assertEquals("a\tbA", properties.get("escaped"));
+        assertEquals("one two", properties.get("continued"));
+        assertEquals("a\tb c", properties.get("quoted"));
+        assertEquals("\"abc\"", properties.get("notquoted"));
+        assertEquals("", properties.get("empty"));
+    }
+
+    @Test
+    public void testReadFormattedOptions() throws Exception {
+        Option<String> spaced = Option.string("file.test.spaced", Category.TEST, "a\tb c", "spaced");
+        String formatted = Option.formatOptions(spaced).replace("#file.test", "file.test");
+
+        Path file = folder.newFile("formatted.properties").toPath();
+        Files.write(file, formatted.getBytes(Charset.forName("UTF-8")));
+
+        PropertiesFileSource source = new PropertiesFileSource(file);
+        assertEquals("a\tb c", source.properties().get("file.test.spaced"));
+    }
+
+    @Test
+    public void testLargeFile() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("file.test.option").append(i).append('=').append(i).append('\n');
+        }
+
+        Path file = folder.newFile("large.properties").toPath();
+        Files.write(file, sb.toString().getBytes(Charset.forName("UTF-8")));
+
+        Map<String, String> properties = new PropertiesFileSource(file).properties();
+        assertEquals(10000, properties.size());
+        assertEquals("9999", properties.get("file.test.option9999"));
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        IntOption count = Option.intOption("file.test.count", Category.TEST, 1, "count");
+        Option<String> name = Option.string("file.test.name", Category.TEST, "none", "name");
+        OptionRegistry registry = new OptionRegistry(count, name);
+
+        Path file = folder.newFile("watched.properties").toPath();
+        write(file, "file.test.count=5\nfile.test.name=first\n");
+
+        PropertiesFileSource source = new PropertiesFileSource(file);
+        try {
+            registry.sources(source, OptionSource.systemProperties());
+            registry.load();
+            source.watch(registry);
+            assertEquals(5, count.loadInt());
+            assertEquals("first", name.load());
+
+            long nameVersion = name.version();
+            write(file, "file.test.count=10\nfile.test.name=first\n");
+
+            long deadline = System.currentTimeMillis() + 30000;
+            while (count.loadInt() != 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertEquals(10, count.loadInt());
+            // unchanged properties are not reloaded
+            assertEquals(nameVersion, name.version());
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void testWatchSurvivesMalformedFile() throws Exception {
+        IntOption count = Option.intOption("file.test.malformed", Category.TEST, 1, "count");
+        OptionRegistry registry = new OptionRegistry(count);
+
+        Path file = folder.newFile("malformed.properties").toPath();
+        write(file, "file.test.malformed=5\n");
+
+        PropertiesFileSource source = new PropertiesFileSource(file);
+        try {
+            registry.sources(source);
+            registry.load();
+            source.watch(registry);
+            assertEquals(5, count.loadInt());
+
+            write(file, "file.test.malformed=\\u12zz\n");
+            Thread.sleep(500);
+            write(file, "file.test.malformed=10\n");
+
+            long deadline = System.currentTimeMillis() + 30000;
+            while (count.loadInt() != 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertEquals(10, count.loadInt());
+        } finally {
+            source.close();
+        }
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        // replace atomically so the watcher never sees a partially-written file
+        Path temp = Files.createTempFile(file.getParent(), "options", ".tmp");
+        Files.write(temp, content.getBytes(Charset.forName("UTF-8")));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}